@@ -0,0 +1,154 @@
+package com.cb4rr.cordova.plugin;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.app.Activity;
+import android.util.Log;
+
+/**
+ * Runs a sequence of already-decoded plugin actions as one bridge call. The
+ * sequence starts in a single UI-thread task and each step runs as soon as the
+ * previous one has answered: inline when it answers synchronously, from its
+ * callback when it answers later. The caller receives one array with an
+ * {action, value} or {action, error} entry per step that ran.
+ */
+class CommandBatch {
+
+    private static final String TAG = "EmbeddedWebView";
+
+    /** One plugin action with its arguments already read. */
+    interface Command {
+        void run(CallbackContext callbackContext) throws JSONException;
+    }
+
+    /** Actions that keep their callback open cannot be part of a batch. */
+    static boolean isBatchable(String action) {
+        return !action.equals("subscribeEvents") && !action.equals("openChannel") && !action.equals("batch");
+    }
+
+    private final String[] actions;
+    private final Command[] commands;
+    private final boolean stopOnError;
+    private final Activity activity;
+    private final CordovaWebView webView;
+    private final CallbackContext callbackContext;
+
+    private final JSONArray results = new JSONArray();
+    private int current = -1;
+    private boolean waiting = false;
+    private boolean running = false;
+    private boolean stopped = false;
+    private boolean finished = false;
+
+    CommandBatch(String[] actions, Command[] commands, boolean stopOnError, Activity activity,
+            CordovaWebView webView, CallbackContext callbackContext) {
+        this.actions = actions;
+        this.commands = commands;
+        this.stopOnError = stopOnError;
+        this.activity = activity;
+        this.webView = webView;
+        this.callbackContext = callbackContext;
+    }
+
+    void start() {
+        activity.runOnUiThread(Diagnostics.traced("ui.batch", new Runnable() {
+            @Override
+            public void run() {
+                next();
+            }
+        }));
+    }
+
+    /** Runs steps until one has to be waited for or the batch is done. UI thread only. */
+    private void next() {
+        while (true) {
+            int step;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                if (stopped || results.length() == commands.length) {
+                    finished = true;
+                    break;
+                }
+                step = results.length();
+                current = step;
+                waiting = true;
+                running = true;
+            }
+
+            try {
+                commands[step].run(stepCallback(step));
+            } catch (JSONException | RuntimeException e) {
+                Log.e(TAG, "Batch step " + step + " (" + actions[step] + ") failed: " + e.getMessage());
+                complete(step, new PluginResult(PluginResult.Status.ERROR, String.valueOf(e.getMessage())));
+            }
+
+            synchronized (this) {
+                running = false;
+                if (waiting) {
+                    return;
+                }
+            }
+        }
+        callbackContext.success(results);
+    }
+
+    private CallbackContext stepCallback(final int step) {
+        return new CallbackContext(callbackContext.getCallbackId(), webView) {
+            @Override
+            public void sendPluginResult(PluginResult result) {
+                complete(step, result);
+            }
+        };
+    }
+
+    /** Records the first real result of {@code step} and resumes the sequence if it had to wait. */
+    private void complete(int step, PluginResult result) {
+        if (result.getStatus() == PluginResult.Status.NO_RESULT.ordinal()) {
+            return;
+        }
+        boolean resume;
+        synchronized (this) {
+            if (step != current || !waiting) {
+                return;
+            }
+            boolean ok = result.getStatus() == PluginResult.Status.OK.ordinal();
+            results.put(entry(actions[step], ok, result.getMessage()));
+            waiting = false;
+            stopped = !ok && stopOnError;
+            resume = !running;
+        }
+        if (resume) {
+            start();
+        }
+    }
+
+    private static JSONObject entry(String action, boolean ok, String message) {
+        JSONObject entry = new JSONObject();
+        try {
+            entry.put("action", action);
+            entry.put(ok ? "value" : "error", decodeMessage(message));
+        } catch (JSONException e) {
+            Log.e(TAG, "Error recording batch result: " + e.getMessage());
+        }
+        return entry;
+    }
+
+    /** PluginResult messages are JSON-encoded; binary results fall back to their raw text. */
+    private static Object decodeMessage(String message) {
+        if (message == null) {
+            return JSONObject.NULL;
+        }
+        try {
+            return new JSONArray("[" + message + "]").get(0);
+        } catch (JSONException e) {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.cb4rr.cordova.plugin;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Log-level gate and android.os.Trace instrumentation. Call sites check
+ * {@link #info()} or {@link #debug()} before building a message, so disabled
+ * logging costs one volatile read and allocates nothing. Trace sections are
+ * only opened while a system trace is being captured (Android 10+), or always
+ * at the "trace" level, and show up in Perfetto under the "EmbeddedWebView." prefix.
+ */
+final class Diagnostics {
+
+    /** Warnings and errors only; they are logged at every level. */
+    static final int OFF = 0;
+    /** Lifecycle messages: instances created, destroyed, evicted, hibernated. */
+    static final int INFO = 1;
+    /** Per-page and per-event messages, including load progress. */
+    static final int DEBUG = 2;
+    /** DEBUG, plus trace sections even when no capture is detected. */
+    static final int TRACE = 3;
+
+    private static final String[] NAMES = { "off", "info", "debug", "trace" };
+    private static final String PREFIX = "EmbeddedWebView.";
+    /** Trace section names are limited to 127 characters. */
+    private static final int MAX_SECTION_NAME = 127;
+
+    private static volatile int level = OFF;
+    private static final AtomicInteger nextCookie = new AtomicInteger(1);
+
+    private Diagnostics() {
+    }
+
+    /** Returns the level named {@code name}, or -1 if there is no such level. */
+    static int parseLevel(String name) {
+        String lower = name.toLowerCase(Locale.US);
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(lower)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static String levelName() {
+        return NAMES[level];
+    }
+
+    static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    static boolean info() {
+        return level >= INFO;
+    }
+
+    static boolean debug() {
+        return level >= DEBUG;
+    }
+
+    static boolean isTracing() {
+        return level >= TRACE || (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && Trace.isEnabled());
+    }
+
+    /**
+     * Opens a trace section on the current thread if tracing. Returns whether it
+     * did; pass the result to {@link #endSection} so sections stay balanced when
+     * tracing starts or stops in between.
+     */
+    static boolean beginSection(String name) {
+        if (!isTracing()) {
+            return false;
+        }
+        Trace.beginSection(sectionName(name));
+        return true;
+    }
+
+    /** Like {@link #beginSection(String)}, concatenating the name only when tracing. */
+    static boolean beginSection(String category, String name) {
+        if (!isTracing()) {
+            return false;
+        }
+        Trace.beginSection(sectionName(category + name));
+        return true;
+    }
+
+    static void endSection(boolean begun) {
+        if (begun) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Wraps a task handed to another thread: an async slice spans the wait from
+     * now until it runs, and a section spans the run itself. Returns {@code task}
+     * unchanged when not tracing.
+     */
+    static Runnable traced(final String name, final Runnable task) {
+        if (!isTracing()) {
+            return task;
+        }
+        final String section = sectionName(name);
+        final int cookie = nextCookie.getAndIncrement();
+        final boolean async = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+        if (async) {
+            Trace.beginAsyncSection(section, cookie);
+        }
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (async) {
+                    Trace.endAsyncSection(section, cookie);
+                }
+                Trace.beginSection(section);
+                try {
+                    task.run();
+                } finally {
+                    Trace.endSection();
+                }
+            }
+        };
+    }
+
+    private static String sectionName(String name) {
+        String section = PREFIX + name;
+        return section.length() > MAX_SECTION_NAME ? section.substring(0, MAX_SECTION_NAME) : section;
+    }
+}
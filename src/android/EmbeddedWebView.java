@@ -8,311 +8,542 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import android.webkit.JavascriptInterface;
+import android.webkit.RenderProcessGoneDetail;
+import android.webkit.WebBackForwardList;
+import android.webkit.WebHistoryItem;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
-import android.webkit.WebSettings;
 import android.webkit.ValueCallback;
 import android.webkit.WebChromeClient;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.WindowInsets;
 import android.widget.FrameLayout;
-import android.widget.ProgressBar;
-import android.graphics.Color;
-import android.graphics.PorterDuff;
 import android.util.Log;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EmbeddedWebView extends CordovaPlugin {
 
     private static final String TAG = "EmbeddedWebView";
-    private WebView embeddedWebView;
-    private ProgressBar progressBar;
+    private static final int DEFAULT_POOL_SIZE = 1;
+    private static final int DEFAULT_MAX_INSTANCES = 3;
+    private static final int DEFAULT_INSTANCE_MEMORY_MB = 30;
+    private static final int DEFAULT_RESPONSE_CACHE_MB = 50;
+    private static final int DEFAULT_IMAGE_CACHE_MB = 32;
+    private static final int DEFAULT_PREVIEW_MEMORY_MB = 8;
+    private static final int DEFAULT_PREVIEW_DISK_MB = 20;
+    /** Delay after onPageFinished before the page preview is captured, so late paints are included. */
+    private static final long PREVIEW_CAPTURE_DELAY_MS = 500;
+    /** How long the warm-up view keeps its hints page before it returns to the pool. */
+    private static final long WARMUP_HOLD_MS = 3000;
+    private static final int DEFAULT_FREEZE_DELAY_MS = 30000;
+    private static final int MAX_CACHED_CONFIGS = 16;
+    /** A renderer lost again within this window is not restored, to avoid a crash loop. */
+    private static final long CRASH_LOOP_WINDOW_MS = 10000;
+    private static final String READ_STORAGE_SCRIPT = "(function(keys){var r={};"
+            + "try{keys.forEach(function(k){var v=sessionStorage.getItem(k);if(v!==null){r[k]=v;}});}catch(e){}"
+            + "return r;})";
+    private static final String WRITE_STORAGE_SCRIPT = "(function(values){"
+            + "try{Object.keys(values).forEach(function(k){"
+            + "if(sessionStorage.getItem(k)===null){sessionStorage.setItem(k,values[k]);}});}catch(e){}"
+            + "})";
+    private static final String HISTORY_BRIDGE = "EmbeddedWebViewHistory";
+    private static final String HISTORY_HOOK = "(function(){"
+            + "if(window.__embeddedWebViewHistoryHooked){return;}"
+            + "window.__embeddedWebViewHistoryHooked=true;"
+            + "var notify=function(){try{" + HISTORY_BRIDGE + ".onHistoryChanged();}catch(e){}};"
+            + "['pushState','replaceState'].forEach(function(name){"
+            + "var original=history[name];"
+            + "history[name]=function(){var result=original.apply(this,arguments);notify();return result;};"
+            + "});"
+            + "window.addEventListener('popstate',notify);"
+            + "window.addEventListener('hashchange',notify);"
+            + "})();";
     private org.apache.cordova.CordovaWebView cordovaWebView;
-    private boolean canGoBack = false;
-    private boolean canGoForward = false;
+    private WebViewPool webViewPool;
+    private WebViewRegistry registry;
+    private EventChannel eventChannel;
+    private FrameController frames;
+    private ResponseCache responseCache;
+    private ImageTranscoder imageTranscoder;
+    private PagePreviews previews;
+    private StateStore stateStore;
+    private final ScriptRegistry scripts = new ScriptRegistry();
+    private final Map<String, RequestFilter> requestFilters = new ConcurrentHashMap<>();
+    /** Parsed create()/prewarm() options by their JSON text, least recently used first. */
+    private final Map<String, WebViewConfig> configs = new LinkedHashMap<String, WebViewConfig>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WebViewConfig> eldest) {
+            return size() > MAX_CACHED_CONFIGS;
+        }
+    };
+    private final RequestFilter.Stats blockStats = new RequestFilter.Stats();
+    private final PageMetrics metrics = new PageMetrics();
+    private final Preconnector preconnector = new Preconnector(metrics);
+    /** Sub-resource headers set by syncSession, by instance id; read on network threads. */
+    private final Map<String, SessionSync.Headers> sessionHeaders = new ConcurrentHashMap<>();
+    /** Each instance's open channels by its id, for sends and closes on the bridge thread. */
+    private final Map<String, Map<String, StreamChannel>> channels = new ConcurrentHashMap<>();
+    /** Each instance's last back/forward snapshot by its id, for getNavigationState on the bridge thread. */
+    private final Map<String, JSONObject> navigationStates = new ConcurrentHashMap<>();
+    /** Hidden view holding the preconnect hints page; UI thread only. */
+    private WebViewPool.Entry warmup;
+    private final Runnable releaseWarmup = () -> {
+        if (warmup != null) {
+            getPool().release(warmup);
+            warmup = null;
+        }
+    };
+    private Handler metricsHandler;
+    private Runnable metricsReporter;
+    private final Map<String, PreloadedPage> preloads = new HashMap<>();
+    private final Handler lifecycleHandler = new Handler(Looper.getMainLooper());
+    private long freezeDelayMs;
+    private boolean activityPaused = false;
+    private boolean timersPaused = false;
+    private ComponentCallbacks2 memoryCallbacks;
+    private HandlerThread channelThread;
+    private Handler channelHandler;
+
+    /** A page loading in a hidden WebView, waiting to be swapped in by loadUrl() or create(). */
+    private static class PreloadedPage {
+        final String url;
+        final WebViewPool.Entry entry;
+        boolean finished = false;
+
+        PreloadedPage(String url, WebViewPool.Entry entry) {
+            this.url = url;
+            this.entry = entry;
+        }
+    }
 
     @Override
     public void initialize(CordovaInterface cordova, CordovaWebView webView) {
         super.initialize(cordova, webView);
         this.cordovaWebView = webView;
+        this.registry = new WebViewRegistry(
+                preferences.getInteger("EmbeddedWebViewMaxInstances", DEFAULT_MAX_INSTANCES),
+                preferences.getInteger("EmbeddedWebViewMemoryBudgetMb", 0) * 1024L * 1024L,
+                preferences.getInteger("EmbeddedWebViewInstanceMemoryMb", DEFAULT_INSTANCE_MEMORY_MB) * 1024L * 1024L);
+        this.frames = new FrameController(webView.getView());
+        this.eventChannel = new EventChannel(preferences.getInteger("EmbeddedWebViewEventFlushIntervalMs", 0));
+        startMetricsReporting(preferences.getInteger("EmbeddedWebViewMetricsIntervalMs", 0));
+        this.freezeDelayMs = preferences.getInteger("EmbeddedWebViewFreezeDelayMs", DEFAULT_FREEZE_DELAY_MS);
+        int diagnostics = Diagnostics.parseLevel(preferences.getString("EmbeddedWebViewDiagnostics", "off"));
+        Diagnostics.setLevel(Math.max(diagnostics, Diagnostics.OFF));
+        this.memoryCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_RUNNING_LOW && level != TRIM_MEMORY_UI_HIDDEN) {
+                    onMemoryPressure();
+                }
+            }
+
+            @Override
+            public void onLowMemory() {
+                onMemoryPressure();
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+        };
+        cordova.getActivity().registerComponentCallbacks(memoryCallbacks);
     }
 
     @Override
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext)
             throws JSONException {
 
+        if (action.equals("batch")) {
+            this.batch(args.getJSONArray(0), args.optJSONObject(1), callbackContext);
+            return true;
+        }
+
+        boolean traced = Diagnostics.beginSection("exec.", action);
+        try {
+            CommandBatch.Command command = decode(action, args);
+            if (command == null) {
+                return false;
+            }
+            command.run(callbackContext);
+            return true;
+        } finally {
+            Diagnostics.endSection(traced);
+        }
+    }
+
+    /**
+     * Reads the arguments of {@code action} and returns the call that performs it,
+     * or null for an unknown action. Runs on the plugin thread, so anything that
+     * touches disk or parses options happens here rather than on the UI thread.
+     */
+    private CommandBatch.Command decode(String action, JSONArray args) throws JSONException {
+
+        if (action.equals("subscribeEvents")) {
+            return callbackContext -> eventChannel.subscribe(callbackContext);
+        }
+
         if (action.equals("create")) {
+            long receivedAt = SystemClock.uptimeMillis();
             String url = args.getString(0);
             JSONObject options = args.getJSONObject(1);
-            this.create(url, options, callbackContext);
-            return true;
+            String id = options.isNull("id") ? WebViewRegistry.DEFAULT_ID : options.getString("id");
+            WebViewConfig config;
+            try {
+                config = getConfig(options);
+            } catch (IOException e) {
+                String message = "Error loading request filter: " + e.getMessage();
+                return callbackContext -> callbackContext.error(message);
+            }
+            StateStore.Snapshot saved = config.restoreState ? getStateStore().load(id) : null;
+            if (Diagnostics.debug()) {
+                Log.d(TAG, "WebView config - ID: " + id + ", URL: " + url);
+                Log.d(TAG, "User offsets - Top: " + config.frame.top + "px, Bottom: " + config.frame.bottom + "px");
+            }
+            return callbackContext -> this.create(id, url, config, saved, receivedAt, callbackContext);
         }
 
         if (action.equals("destroy")) {
-            this.destroy(callbackContext);
-            return true;
+            String id = instanceId(args, 0);
+            return callbackContext -> this.destroy(id, callbackContext);
         }
 
         if (action.equals("loadUrl")) {
             String url = args.getString(0);
-            JSONObject headers = args.optJSONObject(1);
-            this.loadUrl(url, headers, callbackContext);
-            return true;
+            Map<String, String> headers = headersOf(args.optJSONObject(1));
+            String id = instanceId(args, 2);
+            return callbackContext -> this.loadUrl(id, url, headers, callbackContext);
+        }
+
+        if (action.equals("syncSession")) {
+            JSONObject session = args.getJSONObject(0);
+            String id = instanceId(args, 1);
+            return callbackContext -> this.syncSession(id, session, callbackContext);
         }
 
         if (action.equals("executeScript")) {
             String script = args.getString(0);
-            this.executeScript(script, callbackContext);
-            return true;
+            String id = instanceId(args, 1);
+            return callbackContext -> this.executeScript(id, script, callbackContext);
+        }
+
+        if (action.equals("setFrame")) {
+            JSONObject frame = args.getJSONObject(0);
+            String id = instanceId(args, 1);
+            return callbackContext -> this.setFrame(id, frame, callbackContext);
         }
 
         if (action.equals("setVisible")) {
             boolean visible = args.getBoolean(0);
-            this.setVisible(visible, callbackContext);
-            return true;
+            String id = instanceId(args, 1);
+            return callbackContext -> this.setVisible(id, visible, callbackContext);
         }
 
         if (action.equals("reload")) {
-            this.reload(callbackContext);
-            return true;
+            String id = instanceId(args, 0);
+            return callbackContext -> this.reload(id, callbackContext);
         }
 
         if (action.equals("goBack")) {
-            this.goBack(callbackContext);
-            return true;
+            String id = instanceId(args, 0);
+            return callbackContext -> this.goBack(id, callbackContext);
         }
 
         if (action.equals("goForward")) {
-            this.goForward(callbackContext);
-            return true;
+            String id = instanceId(args, 0);
+            return callbackContext -> this.goForward(id, callbackContext);
         }
 
-        return false;
-    }
-
-    public boolean onBackPressed() {
-        if (embeddedWebView != null && embeddedWebView.canGoBack()) {
-            cordova.getActivity().runOnUiThread(() -> {
-                embeddedWebView.goBack();
-                Log.d(TAG, "Back button intercepted - navigated back in WebView");
-            });
-            return true;
+        if (action.equals("prewarm")) {
+            int count = args.optInt(0, 1);
+            JSONObject options = args.optJSONObject(1);
+            WebViewConfig config;
+            try {
+                config = options != null ? getConfig(options) : WebViewConfig.DEFAULT;
+            } catch (IOException e) {
+                String message = "Error loading request filter: " + e.getMessage();
+                return callbackContext -> callbackContext.error(message);
+            }
+            return callbackContext -> this.prewarm(count, config, callbackContext);
         }
-        return false;
-    }
 
-    private void create(final String url, final JSONObject options, final CallbackContext callbackContext) {
-        Log.d(TAG, "Creating WebView");
+        if (action.equals("getPoolStats")) {
+            return callbackContext -> this.getPoolStats(callbackContext);
+        }
 
-        if (embeddedWebView != null) {
-            Log.w(TAG, "WebView already exists, destroying before creating a new one");
-            destroy(callbackContext);
+        if (action.equals("registerScript")) {
+            String script = args.getString(0);
+            return callbackContext -> this.registerScript(script, callbackContext);
         }
 
-        cordova.getActivity().runOnUiThread(() -> {
-            try {
-                int topOffset = options.optInt("top", 0);
-                int bottomOffset = options.optInt("bottom", 0);
+        if (action.equals("unregisterScript")) {
+            String name = args.getString(0);
+            return callbackContext -> this.unregisterScript(name, callbackContext);
+        }
 
-                Log.d(TAG, "WebView config - URL: " + url);
-                Log.d(TAG, "User offsets - Top: " + topOffset + "px, Bottom: " + bottomOffset + "px");
+        if (action.equals("invokeScripts")) {
+            JSONArray calls = args.getJSONArray(0);
+            String id = instanceId(args, 1);
+            return callbackContext -> this.invokeScripts(id, calls, callbackContext);
+        }
 
-                ViewGroup decorView = (ViewGroup) cordova.getActivity().getWindow().getDecorView();
-                int safeTop = 0;
-                int safeBottom = 0;
+        if (action.equals("preload")) {
+            String url = args.getString(0);
+            Map<String, String> headers = headersOf(args.optJSONObject(1));
+            String id = instanceId(args, 2);
+            return callbackContext -> this.preload(id, url, headers, callbackContext);
+        }
 
-                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
-                    WindowInsets insets = decorView.getRootWindowInsets();
-                    if (insets != null) {
-                        View cordovaView = cordovaWebView.getView();
-                        boolean cordovaConsumesInsets = cordovaView.getFitsSystemWindows();
-
-                        if (!cordovaConsumesInsets) {
-                            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.P) {
-                                android.view.DisplayCutout cutout = insets.getDisplayCutout();
-                                if (cutout != null) {
-                                    safeTop = cutout.getSafeInsetTop();
-                                    safeBottom = cutout.getSafeInsetBottom();
-                                }
-                            }
-                            safeTop = Math.max(safeTop, insets.getSystemWindowInsetTop());
-                            safeBottom = Math.max(safeBottom, insets.getSystemWindowInsetBottom());
-                        }
-                    }
-                }
+        if (action.equals("preconnect")) {
+            List<String> origins = Preconnector.originsOf(args.getJSONArray(0));
+            return callbackContext -> this.preconnect(origins, callbackContext);
+        }
 
-                Log.d(TAG, "Safe area insets - Top: " + safeTop + "px, Bottom: " + safeBottom + "px");
+        if (action.equals("precache")) {
+            JSONArray urls = args.getJSONArray(0);
+            return callbackContext -> this.precache(urls, callbackContext);
+        }
 
-                int finalTopMargin = safeTop + topOffset;
-                int finalBottomMargin = safeBottom + bottomOffset;
+        if (action.equals("getCacheStats")) {
+            return callbackContext -> this.getCacheStats(callbackContext);
+        }
 
-                Log.d(TAG, "Final margins - Top: " + finalTopMargin + "px, Bottom: " + finalBottomMargin + "px");
+        if (action.equals("getNavigationState")) {
+            String id = instanceId(args, 0);
+            return callbackContext -> this.getNavigationState(id, callbackContext);
+        }
 
-                FrameLayout webViewContainer = new FrameLayout(cordova.getActivity());
+        if (action.equals("getImageStats")) {
+            return callbackContext -> this.getImageStats(callbackContext);
+        }
 
-                embeddedWebView = new WebView(cordova.getActivity());
+        if (action.equals("getBlockStats")) {
+            return callbackContext -> callbackContext.success(blockStats.toJson());
+        }
 
-                WebSettings settings = embeddedWebView.getSettings();
-                settings.setJavaScriptEnabled(true);
-                settings.setDomStorageEnabled(true);
-                settings.setDatabaseEnabled(true);
-                settings.setAllowFileAccess(true);
-                settings.setAllowContentAccess(true);
-                settings.setLoadWithOverviewMode(true);
-                settings.setUseWideViewPort(true);
+        if (action.equals("getMetrics")) {
+            return callbackContext -> callbackContext.success(metrics.toJson());
+        }
 
-                if (options.optBoolean("enableZoom", false)) {
-                    settings.setBuiltInZoomControls(true);
-                    settings.setDisplayZoomControls(false);
-                }
+        if (action.equals("resetMetrics")) {
+            return callbackContext -> {
+                metrics.reset();
+                callbackContext.success("Metrics reset");
+            };
+        }
 
-                if (options.optBoolean("clearCache", false)) {
-                    embeddedWebView.clearCache(true);
-                }
+        if (action.equals("openChannel")) {
+            String name = args.getString(0);
+            String id = instanceId(args, 1);
+            return callbackContext -> this.openChannel(id, name, callbackContext);
+        }
 
-                if (options.has("userAgent")) {
-                    settings.setUserAgentString(options.getString("userAgent"));
-                }
+        if (action.equals("channelSend")) {
+            String name = args.getString(0);
+            String payload = args.getString(1);
+            boolean binary = args.optBoolean(2, false);
+            String id = instanceId(args, 3);
+            return callbackContext -> this.channelSend(id, name, payload, binary, callbackContext);
+        }
 
-                // Performance
-                settings.setRenderPriority(WebSettings.RenderPriority.HIGH);
-                settings.setCacheMode(WebSettings.LOAD_DEFAULT);
-                settings.setEnableSmoothTransition(true);
+        if (action.equals("closeChannel")) {
+            String name = args.getString(0);
+            String id = instanceId(args, 1);
+            return callbackContext -> this.closeChannel(id, name, callbackContext);
+        }
 
-                embeddedWebView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        if (action.equals("getInstances")) {
+            return callbackContext -> this.getInstances(callbackContext);
+        }
 
-                // Scrollbars
-                embeddedWebView.setVerticalScrollBarEnabled(false);
-                embeddedWebView.setHorizontalScrollBarEnabled(false);
-                embeddedWebView.setScrollbarFadingEnabled(true);
-                embeddedWebView.setOverScrollMode(WebView.OVER_SCROLL_NEVER);
-                embeddedWebView.setScrollBarStyle(View.SCROLLBARS_INSIDE_OVERLAY);
+        if (action.equals("setDiagnostics")) {
+            String name = args.getString(0);
+            int level = Diagnostics.parseLevel(name);
+            if (level < 0) {
+                return callbackContext -> callbackContext.error("Unknown diagnostics level: " + name);
+            }
+            return callbackContext -> {
+                Diagnostics.setLevel(level);
+                Log.i(TAG, "Diagnostics level set to " + Diagnostics.levelName());
+                callbackContext.success(Diagnostics.levelName());
+            };
+        }
 
-                progressBar = new ProgressBar(
-                        cordova.getActivity(),
-                        null,
-                        android.R.attr.progressBarStyleHorizontal);
+        return null;
+    }
 
-                String progressColor = options.optString("progressColor", "#2196F3");
-                try {
-                    progressBar.getProgressDrawable().setColorFilter(
-                            Color.parseColor(progressColor),
-                            PorterDuff.Mode.SRC_IN);
-                } catch (Exception e) {
-                    Log.w(TAG, "Invalid progress color, using default");
-                }
-
-                int progressHeight = options.optInt("progressHeight", 5);
-                float density = cordova.getActivity().getResources().getDisplayMetrics().density;
-                int progressHeightPx = (int) (progressHeight * density);
-
-                FrameLayout.LayoutParams progressParams = new FrameLayout.LayoutParams(
-                        ViewGroup.LayoutParams.MATCH_PARENT,
-                        progressHeightPx);
-                progressParams.gravity = android.view.Gravity.BOTTOM;
-                progressBar.setMax(100);
-                progressBar.setProgress(0);
-                progressBar.setVisibility(View.GONE);
-
-                embeddedWebView.setWebViewClient(new WebViewClient() {
-                    @Override
-                    public void onPageStarted(WebView view, String url, android.graphics.Bitmap favicon) {
-                        super.onPageStarted(view, url, favicon);
-                        if (progressBar != null) {
-                            progressBar.setVisibility(View.VISIBLE);
-                            progressBar.setProgress(0);
-                        }
-                        Log.d(TAG, "Page started loading: " + url);
-                        fireEvent("loadStart", url);
-                    }
-
-                    @Override
-                    public void onPageFinished(WebView view, String url) {
-                        super.onPageFinished(view, url);
-                        if (progressBar != null) {
-                            progressBar.setProgress(100);
-                            progressBar.postDelayed(() -> {
-                                if (progressBar != null) {
-                                    progressBar.setVisibility(View.GONE);
-                                }
-                            }, 200);
-                        }
+    /**
+     * Decodes every step of a batch here, on the plugin thread, then runs them in
+     * order starting from a single UI-thread task. Steps that answer synchronously
+     * follow each other inside that task; a step that answers later (a script
+     * evaluation, a channel send) resumes the sequence from its callback.
+     */
+    private void batch(JSONArray calls, JSONObject options, CallbackContext callbackContext) throws JSONException {
+        boolean stopOnError = options != null && options.optBoolean("stopOnError", false);
+        String[] actions = new String[calls.length()];
+        CommandBatch.Command[] commands = new CommandBatch.Command[calls.length()];
+        for (int i = 0; i < calls.length(); i++) {
+            JSONObject call = calls.getJSONObject(i);
+            actions[i] = call.getString("action");
+            JSONArray args = call.optJSONArray("args");
+            if (!CommandBatch.isBatchable(actions[i])) {
+                callbackContext.error("Action not supported in batch: " + actions[i]);
+                return;
+            }
+            commands[i] = decode(actions[i], args != null ? args : new JSONArray());
+            if (commands[i] == null) {
+                callbackContext.error("Unknown action in batch: " + actions[i]);
+                return;
+            }
+        }
+        new CommandBatch(actions, commands, stopOnError, cordova.getActivity(), cordovaWebView, callbackContext).start();
+    }
 
-                        // Smooth scrolling
-                        String css = "html, body { scroll-behavior: smooth !important; }";
-                        String js = "let style = document.createElement('style');"
-                                + "style.innerHTML = `" + css + "`;"
-                                + "document.head.appendChild(style);";
-                        view.evaluateJavascript(js, null);
+    public boolean onBackPressed() {
+        WebViewInstance instance = registry.mostRecentlyShownVisible();
+        if (instance != null && instance.canNavigateBack()) {
+            runOnUiThread("ui.onBackPressed", () -> {
+                if (instance.webView.canGoBack()) {
+                    instance.webView.goBack();
+                } else if (instance.previous != null) {
+                    swapBack(instance);
+                }
+                if (Diagnostics.info()) {
+                    Log.i(TAG, "Back button intercepted - navigated back in WebView");
+                }
+            });
+            return true;
+        }
+        return false;
+    }
 
-                        Log.d(TAG, "Page finished loading: " + url);
+    private void create(final String id, final String url, final WebViewConfig config,
+            final StateStore.Snapshot saved, final long receivedAt, final CallbackContext callbackContext) {
+        if (Diagnostics.info()) {
+            Log.i(TAG, "Creating WebView");
+        }
+        if (!config.preconnect.isEmpty()) {
+            preconnector.warm(config.preconnect, cordova.getThreadPool());
+        }
 
-                        updateNavigationState();
-                        fireEvent("loadStop", url);
-                    }
+        runOnUiThread("ui.create", () -> {
+            try {
+                if (registry.get(id) != null) {
+                    Log.w(TAG, "WebView already exists, destroying before creating a new one");
+                    releaseInstance(registry.remove(id));
+                }
 
-                    @Override
-                    public void onReceivedError(WebView view, int errorCode, String description, String failingUrl) {
-                        super.onReceivedError(view, errorCode, description, failingUrl);
-                        Log.e(TAG, "Error loading page: " + description);
-                        fireEvent("loadError", "{\"url\":\"" + failingUrl + "\",\"code\":" + errorCode
-                                + ",\"message\":\"" + description + "\"}");
-                    }
-                });
+                for (WebViewInstance evicted : registry.evictionCandidates(1)) {
+                    evictInstance(evicted);
+                }
+                if (registry.isFull(1)) {
+                    callbackContext.error("Maximum number of WebView instances reached");
+                    return;
+                }
 
-                embeddedWebView.setWebChromeClient(new WebChromeClient() {
-                    @Override
-                    public void onProgressChanged(WebView view, int newProgress) {
-                        super.onProgressChanged(view, newProgress);
-                        if (progressBar != null) {
-                            progressBar.setProgress(newProgress);
-                            Log.d(TAG, "Loading progress: " + newProgress + "%");
-                        }
-                    }
-                });
+                ViewGroup decorView = (ViewGroup) cordova.getActivity().getWindow().getDecorView();
+                FrameController.SafeArea safeArea = FrameController.SafeArea.NONE;
+                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
+                    safeArea = frames.safeAreaOf(decorView.getRootWindowInsets());
+                }
 
-                embeddedWebView.setBackgroundColor(Color.TRANSPARENT);
+                if (Diagnostics.debug()) {
+                    Log.d(TAG, "Safe area insets - Top: " + safeArea.top + "px, Bottom: " + safeArea.bottom + "px");
+                }
 
-                FrameLayout.LayoutParams webViewParams = new FrameLayout.LayoutParams(
-                        ViewGroup.LayoutParams.MATCH_PARENT,
-                        ViewGroup.LayoutParams.MATCH_PARENT);
-                webViewContainer.addView(embeddedWebView, webViewParams);
+                PreloadedPage preloaded = saved == null ? takePreload(id, url) : null;
+                WebViewPool.Entry entry = preloaded != null ? preloaded.entry : getPool().acquire();
+                getPool().configure(entry, config);
+                final WebViewInstance instance = new WebViewInstance(id, entry);
+                instance.config = config;
+                instance.frame = config.frame;
+                instance.safeArea = safeArea;
+                instance.createReceivedAt = receivedAt;
+                instance.webViewReadyAt = SystemClock.uptimeMillis();
+                WebView embeddedWebView = instance.webView;
+                FrameLayout webViewContainer = instance.container;
+
+                if (config.clearCache) {
+                    embeddedWebView.clearCache(true);
+                    final ResponseCache cache = getResponseCache();
+                    cordova.getThreadPool().execute(cache::clear);
+                    if (config.imageRules != null) {
+                        cordova.getThreadPool().execute(getImageTranscoder()::clear);
+                    }
+                    if (config.placeholder) {
+                        cordova.getThreadPool().execute(getPreviews()::clear);
+                    }
+                } else if (config.cachePolicy != null) {
+                    final ResponseCache cache = getResponseCache();
+                    cordova.getThreadPool().execute(cache::ensureLoaded);
+                }
 
-                webViewContainer.addView(progressBar, progressParams);
+                attachClients(id, entry, instance);
 
                 ViewGroup contentView = (ViewGroup) decorView.findViewById(android.R.id.content);
 
-                FrameLayout.LayoutParams containerParams = new FrameLayout.LayoutParams(
-                        ViewGroup.LayoutParams.MATCH_PARENT,
-                        ViewGroup.LayoutParams.MATCH_PARENT);
-                containerParams.topMargin = finalTopMargin;
-                containerParams.bottomMargin = finalBottomMargin;
-
-                contentView.addView(webViewContainer, containerParams);
-
-                webViewContainer.bringToFront();
+                FrameLayout.LayoutParams containerParams = FrameController.layoutParams(config.frame, safeArea);
+                if (Diagnostics.debug()) {
+                    Log.d(TAG, "Final margins - Top: " + containerParams.topMargin + "px, Bottom: "
+                            + containerParams.bottomMargin + "px");
+                }
 
-                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
-                    webViewContainer.setElevation(10f);
-                    webViewContainer.setTranslationZ(10f);
+                if (webViewContainer.getParent() == null) {
+                    contentView.addView(webViewContainer, containerParams);
+                } else {
+                    webViewContainer.setLayoutParams(containerParams);
                 }
+                frames.track(instance);
+
+                instance.setVisible(true);
+                registry.put(instance);
 
                 contentView.invalidate();
                 contentView.requestLayout();
 
-                if (options.has("headers")) {
-                    JSONObject headersJson = options.getJSONObject("headers");
-                    Map<String, String> headers = jsonToMap(headersJson);
-                    embeddedWebView.loadUrl(url, headers);
+                if (saved != null) {
+                    if (Diagnostics.info()) {
+                        Log.i(TAG, "Restoring saved state: " + saved.url);
+                    }
+                    instance.snapshot = saved;
+                    restoreSnapshot(instance, saved);
+                } else if (preloaded != null) {
+                    if (Diagnostics.info()) {
+                        Log.i(TAG, "Showing preloaded page: " + url);
+                    }
+                    onPreloadAdopted(instance, preloaded);
                 } else {
-                    embeddedWebView.loadUrl(url);
+                    if (config.placeholder) {
+                        getPreviews().show(entry, url);
+                    }
+                    if (!config.headers.isEmpty()) {
+                        embeddedWebView.loadUrl(url, config.headers);
+                    } else {
+                        embeddedWebView.loadUrl(url);
+                    }
                 }
 
-                Log.d(TAG, "WebView created successfully with progress bar");
+                if (Diagnostics.info()) {
+                    Log.i(TAG, "WebView created successfully with progress bar");
+                }
                 callbackContext.success("WebView created successfully");
 
             } catch (Exception e) {
@@ -321,234 +552,1460 @@ public class EmbeddedWebView extends CordovaPlugin {
                 callbackContext.error("Error creating WebView: " + e.getMessage());
             }
         });
+        if (!config.preconnect.isEmpty()) {
+            // Queued behind the create so the new instance keeps the pooled view
+            runOnUiThread("ui.preconnect", () -> loadHints(config.preconnect));
+        }
     }
 
-    private void destroy(final CallbackContext callbackContext) {
-        cordova.getActivity().runOnUiThread(new Runnable() {
+    /**
+     * Installs the WebView clients and user scripts for {@code entry} on behalf of
+     * instance {@code id}, configured from {@code owner} (null for a preload ahead
+     * of create()). Events are only fired while the entry is the instance's
+     * active view, so a preloading page stays silent until it is swapped in.
+     */
+    private void attachClients(final String id, final WebViewPool.Entry entry, final WebViewInstance owner) {
+        final WebViewConfig config = owner != null ? owner.config : WebViewConfig.DEFAULT;
+        final ResponseCache.Policy cachePolicy = config.cachePolicy;
+        final UserScripts userScripts = config.userScripts;
+        final RequestFilter requestFilter = config.requestFilter;
+        final ImageTranscoder.Rules imageRules = config.imageRules;
+        final boolean placeholder = config.placeholder;
+        final boolean nativeScripts = userScripts.install(entry);
+        entry.addJavascriptInterface(new HistoryBridge(id, entry.webView), HISTORY_BRIDGE);
+
+        entry.webView.setWebViewClient(new WebViewClient() {
+            private long pageStartedAt = 0;
+
             @Override
-            public void run() {
-                if (embeddedWebView != null) {
-                    ViewGroup parent = (ViewGroup) embeddedWebView.getParent();
-                    if (parent != null) {
-                        ViewGroup grandParent = (ViewGroup) parent.getParent();
-                        if (grandParent != null) {
-                            grandParent.removeView(parent);
+            public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                boolean traced = Diagnostics.beginSection("client.shouldInterceptRequest");
+                try {
+                    if (requestFilter != null && !request.isForMainFrame()) {
+                        String host = request.getUrl().getHost();
+                        if (host != null) {
+                            long matchStart = System.nanoTime();
+                            boolean blocked = requestFilter.isBlocked(host);
+                            blockStats.recordLookup(System.nanoTime() - matchStart);
+                            if (blocked) {
+                                blockStats.recordBlocked(host);
+                                return new WebResourceResponse("text/plain", "utf-8", new ByteArrayInputStream(new byte[0]));
+                            }
                         }
                     }
-                    embeddedWebView.destroy();
-                    embeddedWebView = null;
-                    progressBar = null;
-                    Log.d(TAG, "WebView destroyed");
-                    callbackContext.success("WebView destroyed");
-                } else {
-                    callbackContext.error("No WebView to destroy");
+                    SessionSync.Headers session = sessionHeaders.get(id);
+                    WebResourceRequest authorized = session != null && !request.isForMainFrame()
+                            ? session.apply(request) : null;
+                    if (authorized != null) {
+                        // Credentialed: kept out of the caches, which every instance and session shares
+                        WebResourceResponse fetched = SessionSync.fetch(authorized);
+                        return fetched != null ? fetched : super.shouldInterceptRequest(view, request);
+                    }
+                    if (imageRules != null && !request.isForMainFrame()) {
+                        // Off the UI thread the measured width may be stale, which only affects quality
+                        int width = view.getWidth() > 0 ? view.getWidth() : view.getResources().getDisplayMetrics().widthPixels;
+                        WebResourceResponse image = getImageTranscoder().intercept(imageRules, request, width,
+                                (origin, bytes) -> metrics.record(origin, "imageBytesSaved", bytes));
+                        if (image != null) {
+                            return image;
+                        }
+                    }
+                    if (cachePolicy != null && !request.isForMainFrame()) {
+                        WebResourceResponse cached = getResponseCache().intercept(cachePolicy, request);
+                        if (cached != null) {
+                            return cached;
+                        }
+                    }
+                    return super.shouldInterceptRequest(view, request);
+                } finally {
+                    Diagnostics.endSection(traced);
                 }
             }
-        });
-    }
 
-    private void loadUrl(final String url, final JSONObject headers,
-            final CallbackContext callbackContext) {
-
-        cordova.getActivity().runOnUiThread(new Runnable() {
             @Override
-            public void run() {
-                if (embeddedWebView != null) {
-                    try {
-                        if (headers != null && headers.length() > 0) {
-                            Map<String, String> headerMap = jsonToMap(headers);
-                            embeddedWebView.loadUrl(url, headerMap);
-                        } else {
-                            embeddedWebView.loadUrl(url);
-                        }
-                        callbackContext.success("URL loaded: " + url);
-                    } catch (Exception e) {
-                        callbackContext.error("Error loading URL: " + e.getMessage());
+            public void doUpdateVisitedHistory(WebView view, String url, boolean isReload) {
+                boolean traced = Diagnostics.beginSection("client.doUpdateVisitedHistory");
+                super.doUpdateVisitedHistory(view, url, isReload);
+                entry.clearStaleHistory(url);
+                WebViewInstance instance = activeInstance(id, view);
+                if (instance != null) {
+                    updateNavigationState(instance);
+                    if (instance.pendingRestore == null) {
+                        saveSnapshot(instance);
                     }
-                } else {
-                    callbackContext.error("WebView not initialized");
                 }
+                Diagnostics.endSection(traced);
             }
-        });
-    }
 
-    private void executeScript(final String script, final CallbackContext callbackContext) {
-        cordova.getActivity().runOnUiThread(new Runnable() {
             @Override
-            public void run() {
-                if (embeddedWebView != null) {
-                    embeddedWebView.evaluateJavascript(script, new ValueCallback<String>() {
-                        @Override
-                        public void onReceiveValue(String result) {
-                            callbackContext.success(result);
-                        }
-                    });
-                } else {
-                    callbackContext.error("WebView not initialized");
+            public boolean onRenderProcessGone(WebView view, RenderProcessGoneDetail detail) {
+                boolean traced = Diagnostics.beginSection("client.onRenderProcessGone");
+                try {
+                    Log.e(TAG, "Renderer " + (detail.didCrash() ? "crashed" : "was killed") + " for " + id);
+                    recoverFromRendererLoss(id, entry, detail.didCrash());
+                    return true;
+                } finally {
+                    Diagnostics.endSection(traced);
                 }
             }
-        });
-    }
 
-    private void setVisible(final boolean visible, final CallbackContext callbackContext) {
-        cordova.getActivity().runOnUiThread(new Runnable() {
             @Override
-            public void run() {
-                if (embeddedWebView != null) {
-                    ViewGroup container = (ViewGroup) embeddedWebView.getParent();
-                    if (container != null) {
-                        container.setVisibility(visible ? View.VISIBLE : View.GONE);
+            public void onPageStarted(WebView view, String url, android.graphics.Bitmap favicon) {
+                boolean traced = Diagnostics.beginSection("client.onPageStarted");
+                super.onPageStarted(view, url, favicon);
+                pageStartedAt = SystemClock.uptimeMillis();
+                entry.progressBar.setVisibility(View.VISIBLE);
+                entry.progressBar.setProgress(0);
+                if (!nativeScripts) {
+                    userScripts.inject(view, url);
+                }
+                if (Diagnostics.debug()) {
+                    Log.d(TAG, "Page started loading: " + url);
+                }
+                WebViewInstance instance = activeInstance(id, view);
+                if (instance != null) {
+                    instance.closeChannels();
+                    if (instance.createReceivedAt > 0) {
+                        String origin = ResponseCache.originOf(url);
+                        metrics.record(origin, "createToWebView", instance.webViewReadyAt - instance.createReceivedAt);
+                        metrics.record(origin, "createToPageStart", pageStartedAt - instance.createReceivedAt);
+                        instance.createReceivedAt = 0;
                     }
-                    callbackContext.success("Visibility changed to: " + visible);
-                } else {
-                    callbackContext.error("WebView not initialized");
+                    StateStore.Snapshot restoring = instance.pendingRestore;
+                    if (restoring != null && restoring.storage.length() > 0
+                            && ResponseCache.originOf(url).equals(ResponseCache.originOf(restoring.url))) {
+                        view.evaluateJavascript(WRITE_STORAGE_SCRIPT + "(" + restoring.storage + ");", null);
+                    }
+                    fireEvent(id, "loadStart", url);
                 }
+                Diagnostics.endSection(traced);
             }
-        });
-    }
 
-    private void reload(final CallbackContext callbackContext) {
-        cordova.getActivity().runOnUiThread(new Runnable() {
             @Override
-            public void run() {
-                if (embeddedWebView != null) {
-                    embeddedWebView.reload();
-                    callbackContext.success("WebView reloaded");
-                } else {
-                    callbackContext.error("WebView not initialized");
+            public void onPageCommitVisible(WebView view, String url) {
+                super.onPageCommitVisible(view, url);
+                if (placeholder && !"about:blank".equals(url)) {
+                    getPreviews().dismiss(entry, true);
+                }
+                if (pageStartedAt > 0) {
+                    metrics.record(ResponseCache.originOf(url), "startToCommitVisible",
+                            SystemClock.uptimeMillis() - pageStartedAt);
                 }
             }
-        });
-    }
 
-    private void goBack(final CallbackContext callbackContext) {
-        cordova.getActivity().runOnUiThread(new Runnable() {
             @Override
-            public void run() {
-                if (embeddedWebView != null) {
-                    if (embeddedWebView.canGoBack()) {
-                        embeddedWebView.goBack();
-                        embeddedWebView.postDelayed(() -> updateNavigationState(), 100);
-                        callbackContext.success("Navigated back");
+            public void onPageFinished(WebView view, String url) {
+                boolean traced = Diagnostics.beginSection("client.onPageFinished");
+                super.onPageFinished(view, url);
+                entry.clearStaleHistory(url);
+                recordPageFinished(view, url, pageStartedAt);
+                pageStartedAt = 0;
+                entry.progressBar.setProgress(100);
+                entry.progressBar.postDelayed(() -> {
+                    entry.progressBar.setVisibility(View.GONE);
+                }, 200);
+
+                if (!nativeScripts) {
+                    userScripts.inject(view, url);
+                }
+                view.evaluateJavascript(HISTORY_HOOK, null);
+
+                if (!scripts.isEmpty()) {
+                    view.evaluateJavascript(scripts.getInstallScript(), null);
+                }
+
+                if (Diagnostics.debug()) {
+                    Log.d(TAG, "Page finished loading: " + url);
+                }
+
+                PreloadedPage preloaded = preloads.get(id);
+                if (preloaded != null && preloaded.entry == entry) {
+                    preloaded.finished = true;
+                }
+
+                WebViewInstance instance = activeInstance(id, view);
+                if (instance != null) {
+                    if (placeholder) {
+                        // Fallback for pages that never report a visual commit
+                        getPreviews().dismiss(entry, true);
+                        view.postDelayed(() -> capturePreview(id, entry, url), PREVIEW_CAPTURE_DELAY_MS);
+                    }
+                    updateNavigationState(instance);
+                    if (instance.pendingRestore != null) {
+                        onSnapshotRestored(instance);
                     } else {
-                        callbackContext.error("Cannot go back");
+                        saveSnapshot(instance);
                     }
-                } else {
-                    callbackContext.error("WebView not initialized");
+                    fireEvent(id, "loadStop", url);
+                }
+                Diagnostics.endSection(traced);
+            }
+
+            @Override
+            public void onReceivedError(WebView view, int errorCode, String description, String failingUrl) {
+                super.onReceivedError(view, errorCode, description, failingUrl);
+                Log.e(TAG, "Error loading page: " + description);
+                if (placeholder) {
+                    getPreviews().dismiss(entry, false);
+                }
+                try {
+                    JSONObject error = new JSONObject();
+                    error.put("url", failingUrl);
+                    error.put("code", errorCode);
+                    error.put("message", description);
+                    if (activeInstance(id, view) != null) {
+                        fireEvent(id, "loadError", error);
+                    }
+                } catch (JSONException e) {
+                    Log.e(TAG, "Error building loadError event: " + e.getMessage());
                 }
             }
         });
-    }
 
-    private void canGoBack(final CallbackContext callbackContext) {
-        cordova.getActivity().runOnUiThread(new Runnable() {
+        entry.webView.setWebChromeClient(new WebChromeClient() {
             @Override
-            public void run() {
-                if (embeddedWebView != null) {
-                    boolean canGoBack = embeddedWebView.canGoBack();
-                    callbackContext.success(canGoBack ? 1 : 0);
-                } else {
-                    callbackContext.error("WebView not initialized");
+            public void onProgressChanged(WebView view, int newProgress) {
+                boolean traced = Diagnostics.beginSection("client.onProgressChanged");
+                super.onProgressChanged(view, newProgress);
+                entry.progressBar.setProgress(newProgress);
+                if (Diagnostics.debug()) {
+                    Log.d(TAG, "Loading progress: " + newProgress + "%");
+                }
+                if (activeInstance(id, view) != null) {
+                    fireEvent(id, "loadProgress", String.valueOf(newProgress));
                 }
+                Diagnostics.endSection(traced);
             }
         });
     }
 
-    private void goForward(final CallbackContext callbackContext) {
-        cordova.getActivity().runOnUiThread(new Runnable() {
+    private void recordPageFinished(WebView view, String url, long pageStartedAt) {
+        if (pageStartedAt == 0 || url == null || !url.startsWith("http")) {
+            return;
+        }
+        final String origin = ResponseCache.originOf(url);
+        metrics.record(origin, "startToFinish", SystemClock.uptimeMillis() - pageStartedAt);
+        view.evaluateJavascript(PageMetrics.PAGE_TIMING_SCRIPT, new ValueCallback<String>() {
             @Override
-            public void run() {
-                if (embeddedWebView != null) {
-                    if (embeddedWebView.canGoForward()) {
-                        embeddedWebView.goForward();
-                        embeddedWebView.postDelayed(() -> updateNavigationState(), 100);
-                        callbackContext.success("Navigated forward");
-                    } else {
-                        callbackContext.error("Cannot go forward");
-                    }
-                } else {
-                    callbackContext.error("WebView not initialized");
+            public void onReceiveValue(String result) {
+                try {
+                    JSONObject timing = new JSONObject(result);
+                    metrics.recordPageTiming(origin, timing);
+                    preconnector.recordSetup(origin, timing);
+                } catch (JSONException e) {
+                    Log.w(TAG, "Page timing unavailable for " + origin);
                 }
             }
         });
     }
 
-    private Map<String, String> jsonToMap(JSONObject json) throws JSONException {
-        Map<String, String> map = new HashMap<>();
-        Iterator<String> keys = json.keys();
-        while (keys.hasNext()) {
-            String key = keys.next();
-            map.put(key, json.getString(key));
+    /** Captures the preview of a finished page if it is still showing, fully loaded and visible. UI thread. */
+    private void capturePreview(String id, WebViewPool.Entry entry, String url) {
+        WebViewInstance instance = activeInstance(id, entry.webView);
+        if (instance != null && instance.isVisible() && url.equals(entry.webView.getUrl())
+                && entry.webView.getProgress() == 100) {
+            getPreviews().capture(entry, url, registry.mostRecentlyShownVisible() == instance);
         }
-        return map;
     }
 
-    private void updateNavigationState() {
-        cordova.getActivity().runOnUiThread(new Runnable() {
+    /** Fires a "metrics" event every {@code intervalMs} while there is data; 0 disables it. */
+    private void startMetricsReporting(final long intervalMs) {
+        if (intervalMs <= 0) {
+            return;
+        }
+        metricsHandler = new Handler(Looper.getMainLooper());
+        metricsReporter = new Runnable() {
             @Override
             public void run() {
-                if (embeddedWebView != null) {
-                    boolean newCanGoBack = embeddedWebView.canGoBack();
-                    boolean newCanGoForward = embeddedWebView.canGoForward();
+                try {
+                    if (!metrics.isEmpty()) {
+                        fireEvent(null, "metrics", metrics.toJson());
+                    }
+                } catch (JSONException e) {
+                    Log.e(TAG, "Error reporting metrics: " + e.getMessage());
+                }
+                metricsHandler.postDelayed(this, intervalMs);
+            }
+        };
+        metricsHandler.postDelayed(metricsReporter, intervalMs);
+    }
+
+    private WebViewInstance activeInstance(String id, WebView view) {
+        WebViewInstance instance = registry.get(id);
+        return instance != null && instance.webView == view ? instance : null;
+    }
 
-                    if (newCanGoBack != canGoBack) {
-                        canGoBack = newCanGoBack;
-                        fireEvent("canGoBackChanged", String.valueOf(canGoBack));
+    private void preload(final String id, final String url, final Map<String, String> headers,
+            final CallbackContext callbackContext) {
+        runOnUiThread("ui.preload", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    PreloadedPage previous = preloads.remove(id);
+                    if (previous != null) {
+                        getPool().release(previous.entry);
                     }
 
-                    if (newCanGoForward != canGoForward) {
-                        canGoForward = newCanGoForward;
-                        fireEvent("canGoForwardChanged", String.valueOf(canGoForward));
+                    WebViewInstance instance = registry.get(id);
+                    WebViewPool.Entry entry = getPool().acquire();
+                    if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
+                        entry.webView.getSettings().setOffscreenPreRaster(true);
+                    }
+                    attachClients(id, entry, instance);
+
+                    // Lay the hidden view out at the visible size so the page renders ahead
+                    ViewGroup contentView = (ViewGroup) cordova.getActivity().findViewById(android.R.id.content);
+                    FrameLayout.LayoutParams params = instance != null
+                            ? FrameController.layoutParams(instance.frame, instance.safeArea)
+                            : new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                    ViewGroup.LayoutParams.MATCH_PARENT);
+                    entry.container.setVisibility(View.INVISIBLE);
+                    contentView.addView(entry.container, params);
+
+                    if (headers != null) {
+                        entry.webView.loadUrl(url, headers);
+                    } else {
+                        entry.webView.loadUrl(url);
                     }
+                    preloads.put(id, new PreloadedPage(url, entry));
 
-                    String navigationState = "{\"canGoBack\":" + canGoBack + ",\"canGoForward\":" + canGoForward + "}";
-                    fireEvent("navigationStateChanged", navigationState);
+                    if (Diagnostics.info()) {
+                        Log.i(TAG, "Preloading " + url + " for " + id);
+                    }
+                    callbackContext.success("Preloading: " + url);
+                } catch (Exception e) {
+                    callbackContext.error("Error preloading URL: " + e.getMessage());
                 }
             }
         });
     }
 
-    private void fireEvent(String eventName, String data) {
-        try {
-            String js = "javascript:cordova.fireDocumentEvent('embeddedwebview." + eventName + "', " +
-                    "{detail: " + (data.startsWith("{") ? data : "'" + data + "'") + "});";
-
-            Log.d(TAG, "Firing event: " + eventName + " with data: " + data);
-
-            cordova.getActivity().runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    cordovaWebView.getView().post(() -> {
-                        try {
-                            cordovaWebView.loadUrl(js);
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error firing event: " + e.getMessage());
-                        }
-                    });
-                }
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "Error firing event: " + e.getMessage());
+    private void preconnect(final List<String> origins, final CallbackContext callbackContext) {
+        if (origins.isEmpty()) {
+            callbackContext.error("No http(s) origins to preconnect");
+            return;
         }
+        preconnector.warm(origins, cordova.getThreadPool());
+        runOnUiThread("ui.preconnect", () -> {
+            try {
+                loadHints(origins);
+                callbackContext.success("Preconnecting: " + origins.size() + " origins");
+            } catch (Exception e) {
+                callbackContext.error("Error preconnecting: " + e.getMessage());
+            }
+        });
     }
 
-    @Override
-    public void onDestroy() {
-        if (embeddedWebView != null) {
-            embeddedWebView.destroy();
-            embeddedWebView = null;
+    /**
+     * Loads preconnect hints for {@code origins} into the warm-up view, which goes
+     * back to the pool once the connections had time to open. Without an idle
+     * pooled view only the DNS warm-up runs, since building one would cost the UI
+     * thread more than the connections save. UI thread.
+     */
+    private void loadHints(List<String> origins) {
+        lifecycleHandler.removeCallbacks(releaseWarmup);
+        if (warmup == null) {
+            warmup = getPool().acquireIdle();
+        }
+        if (warmup == null) {
+            if (Diagnostics.debug()) {
+                Log.d(TAG, "No idle view to preconnect " + origins + ", DNS only");
+            }
+            return;
+        }
+        warmup.webView.loadDataWithBaseURL(null, Preconnector.hintsPage(origins), "text/html", "utf-8", null);
+        lifecycleHandler.postDelayed(releaseWarmup, WARMUP_HOLD_MS);
+        if (Diagnostics.info()) {
+            Log.i(TAG, "Preconnecting " + origins);
         }
-        progressBar = null;
-        super.onDestroy();
     }
 
-    @Override
-    public void onReset() {
-        if (embeddedWebView != null) {
-            embeddedWebView.destroy();
-            embeddedWebView = null;
+    private PreloadedPage takePreload(String id, String url) {
+        PreloadedPage preloaded = preloads.get(id);
+        if (preloaded == null || !preloaded.url.equals(url)) {
+            return null;
         }
-        progressBar = null;
-        super.onReset();
+        return preloads.remove(id);
+    }
+
+    /** Replaces the instance's view with the preloaded one, keeping the old view as the back target. */
+    private void swapInPreload(WebViewInstance instance, PreloadedPage preloaded) {
+        boolean visible = instance.isVisible();
+        preloaded.entry.container.setLayoutParams(instance.container.getLayoutParams());
+        attachClients(instance.id, preloaded.entry, instance);
+
+        if (instance.previous != null) {
+            getPool().release(instance.previous);
+        }
+        WebViewPool.Entry retired = instance.adopt(preloaded.entry);
+        retired.container.setVisibility(View.GONE);
+        retired.webView.onPause();
+        instance.previous = retired;
+        frames.track(instance);
+
+        instance.setVisible(visible);
+        if (!visible || activityPaused) {
+            instance.throttle();
+        }
+        if (Diagnostics.info()) {
+            Log.i(TAG, "Swapped in preloaded page: " + preloaded.url);
+        }
+        onPreloadAdopted(instance, preloaded);
+    }
+
+    /** Returns to the view retired by the last swap, releasing the current one. */
+    private void swapBack(WebViewInstance instance) {
+        boolean visible = instance.isVisible();
+        WebViewPool.Entry previous = instance.previous;
+        instance.previous = null;
+        previous.container.setLayoutParams(instance.container.getLayoutParams());
+        previous.webView.onResume();
+
+        WebViewPool.Entry current = instance.adopt(previous);
+        getPool().release(current);
+        frames.track(instance);
+
+        instance.setVisible(visible);
+        if (!visible || activityPaused) {
+            instance.throttle();
+        }
+        updateNavigationState(instance);
+        fireEvent(instance.id, "loadStop", instance.webView.getUrl());
+    }
+
+    private void onPreloadAdopted(WebViewInstance instance, PreloadedPage preloaded) {
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
+            instance.webView.getSettings().setOffscreenPreRaster(false);
+        }
+        if (preloaded.finished) {
+            fireEvent(instance.id, "loadStart", preloaded.url);
+            fireEvent(instance.id, "loadStop", preloaded.url);
+        }
+        updateNavigationState(instance);
+    }
+
+    private void destroy(final String id, final CallbackContext callbackContext) {
+        runOnUiThread("ui.destroy", new Runnable() {
+            @Override
+            public void run() {
+                PreloadedPage preloaded = preloads.remove(id);
+                if (preloaded != null) {
+                    getPool().release(preloaded.entry);
+                }
+
+                WebViewInstance instance = registry.remove(id);
+                if (instance != null) {
+                    releaseInstance(instance);
+                    if (instance.config.persistState) {
+                        getStateStore().delete(id);
+                    }
+                    if (Diagnostics.info()) {
+                        Log.i(TAG, "WebView destroyed");
+                    }
+                    callbackContext.success("WebView destroyed");
+                } else {
+                    callbackContext.error("No WebView to destroy");
+                }
+            }
+        });
+    }
+
+    private void prewarm(final int count, final WebViewConfig config, final CallbackContext callbackContext) {
+        runOnUiThread("ui.prewarm", new Runnable() {
+            @Override
+            public void run() {
+                getPool().prewarm(count, config, () -> {
+                    try {
+                        if (Diagnostics.info()) {
+                            Log.i(TAG, "WebView pool prewarmed with " + count + " instance(s)");
+                        }
+                        callbackContext.success(getPool().getStats());
+                    } catch (JSONException e) {
+                        callbackContext.error("Error reading pool stats: " + e.getMessage());
+                    }
+                });
+            }
+        });
+    }
+
+    private void getPoolStats(final CallbackContext callbackContext) {
+        runOnUiThread("ui.getPoolStats", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    callbackContext.success(getPool().getStats());
+                } catch (JSONException e) {
+                    callbackContext.error("Error reading pool stats: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void getInstances(final CallbackContext callbackContext) {
+        runOnUiThread("ui.getInstances", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    JSONArray instances = new JSONArray();
+                    for (WebViewInstance instance : registry.all()) {
+                        JSONObject info = new JSONObject();
+                        info.put("id", instance.id);
+                        info.put("url", instance.isHibernated()
+                                ? (instance.snapshot != null ? instance.snapshot.url : null)
+                                : instance.webView.getUrl());
+                        info.put("visible", instance.isVisible());
+                        info.put("state", instance.lifecycleState());
+                        instances.put(info);
+                    }
+                    callbackContext.success(instances);
+                } catch (JSONException e) {
+                    callbackContext.error("Error listing instances: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void precache(final JSONArray urls, final CallbackContext callbackContext) {
+        final ResponseCache cache = getResponseCache();
+        cordova.getThreadPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int stored = 0;
+                    for (int i = 0; i < urls.length(); i++) {
+                        if (cache.precache(urls.getString(i))) {
+                            stored++;
+                        }
+                    }
+                    if (Diagnostics.info()) {
+                        Log.i(TAG, "Precached " + stored + " of " + urls.length() + " URL(s)");
+                    }
+                    JSONObject result = cache.getStats();
+                    result.put("precached", stored);
+                    callbackContext.success(result);
+                } catch (JSONException e) {
+                    callbackContext.error("Error precaching: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void getCacheStats(final CallbackContext callbackContext) {
+        try {
+            callbackContext.success(getResponseCache().getStats());
+        } catch (JSONException e) {
+            callbackContext.error("Error reading cache stats: " + e.getMessage());
+        }
+    }
+
+    private void getImageStats(final CallbackContext callbackContext) {
+        try {
+            callbackContext.success(getImageTranscoder().getStats());
+        } catch (JSONException e) {
+            callbackContext.error("Error reading image stats: " + e.getMessage());
+        }
+    }
+
+    /** Parses create()/prewarm() options, reusing the config parsed for identical options. */
+    private WebViewConfig getConfig(JSONObject options) throws JSONException, IOException {
+        String key = options.toString();
+        synchronized (configs) {
+            WebViewConfig config = configs.get(key);
+            if (config != null) {
+                return config;
+            }
+        }
+        WebViewConfig config = WebViewConfig.fromOptions(options, getRequestFilter(options));
+        synchronized (configs) {
+            configs.put(key, config);
+        }
+        return config;
+    }
+
+    /** Compiles the "requestFilter" option once per distinct configuration. */
+    private RequestFilter getRequestFilter(JSONObject options) throws JSONException, IOException {
+        JSONObject config = options.optJSONObject("requestFilter");
+        if (config == null) {
+            return null;
+        }
+        String key = config.toString();
+        RequestFilter filter = requestFilters.get(key);
+        if (filter == null) {
+            filter = RequestFilter.fromOptions(options, cordova.getActivity().getAssets());
+            requestFilters.put(key, filter);
+            if (Diagnostics.info()) {
+                Log.i(TAG, "Compiled request filter with " + filter.size() + " rule(s)");
+            }
+        }
+        return filter;
+    }
+
+    private synchronized ResponseCache getResponseCache() {
+        if (responseCache == null) {
+            File directory = new File(cordova.getActivity().getCacheDir(), "EmbeddedWebView");
+            long maxBytes = preferences.getInteger("EmbeddedWebViewResponseCacheMb", DEFAULT_RESPONSE_CACHE_MB) * 1024L * 1024L;
+            responseCache = new ResponseCache(directory, maxBytes);
+        }
+        return responseCache;
+    }
+
+    private synchronized ImageTranscoder getImageTranscoder() {
+        if (imageTranscoder == null) {
+            File directory = new File(cordova.getActivity().getCacheDir(), "EmbeddedWebViewImages");
+            long maxBytes = preferences.getInteger("EmbeddedWebViewImageCacheMb", DEFAULT_IMAGE_CACHE_MB) * 1024L * 1024L;
+            imageTranscoder = new ImageTranscoder(directory, maxBytes);
+        }
+        return imageTranscoder;
+    }
+
+    private synchronized PagePreviews getPreviews() {
+        if (previews == null) {
+            File directory = new File(cordova.getActivity().getCacheDir(), "EmbeddedWebViewPreviews");
+            int memoryBytes = preferences.getInteger("EmbeddedWebViewPreviewMemoryMb", DEFAULT_PREVIEW_MEMORY_MB) * 1024 * 1024;
+            long diskBytes = preferences.getInteger("EmbeddedWebViewPreviewDiskMb", DEFAULT_PREVIEW_DISK_MB) * 1024L * 1024L;
+            previews = new PagePreviews(cordova.getActivity(), directory, memoryBytes, diskBytes, cordova.getThreadPool());
+        }
+        return previews;
+    }
+
+    private synchronized StateStore getStateStore() {
+        if (stateStore == null) {
+            File directory = new File(cordova.getActivity().getFilesDir(), "EmbeddedWebView/state");
+            stateStore = new StateStore(directory, cordova.getThreadPool(),
+                    StateStore.versionOf(cordova.getActivity()));
+        }
+        return stateStore;
+    }
+
+    private WebViewPool getPool() {
+        if (webViewPool == null) {
+            int poolSize = preferences.getInteger("EmbeddedWebViewPoolSize", DEFAULT_POOL_SIZE);
+            webViewPool = new WebViewPool(cordova.getActivity(), poolSize);
+        }
+        return webViewPool;
+    }
+
+    private void releaseInstance(WebViewInstance instance) {
+        sessionHeaders.remove(instance.id);
+        channels.remove(instance.id);
+        navigationStates.remove(instance.id);
+        cancelFreeze(instance);
+        frames.cancel(instance);
+        instance.closeChannels();
+        if (!instance.isHibernated()) {
+            getPool().release(instance.entry);
+        }
+        if (instance.previous != null) {
+            getPool().release(instance.previous);
+            instance.previous = null;
+        }
+    }
+
+    private void evictInstance(WebViewInstance instance) {
+        registry.remove(instance.id);
+        sessionHeaders.remove(instance.id);
+        channels.remove(instance.id);
+        navigationStates.remove(instance.id);
+        cancelFreeze(instance);
+        frames.cancel(instance);
+        instance.closeChannels();
+        if (!instance.isHibernated()) {
+            getPool().discard(instance.entry);
+        }
+        if (instance.previous != null) {
+            getPool().discard(instance.previous);
+            instance.previous = null;
+        }
+        PreloadedPage preloaded = preloads.remove(instance.id);
+        if (preloaded != null) {
+            getPool().discard(preloaded.entry);
+        }
+        if (Diagnostics.info()) {
+            Log.i(TAG, "Evicted hidden WebView: " + instance.id);
+        }
+        fireEvent(instance.id, "evicted", instance.id);
+    }
+
+    private void loadUrl(final String id, final String url, final Map<String, String> headers,
+            final CallbackContext callbackContext) {
+
+        runOnUiThread("ui.loadUrl", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = awake(id);
+                if (instance != null) {
+                    try {
+                        PreloadedPage preloaded = takePreload(id, url);
+                        if (preloaded != null) {
+                            swapInPreload(instance, preloaded);
+                        } else {
+                            if (instance.config.placeholder) {
+                                getPreviews().show(instance.entry, url);
+                            }
+                            if (headers != null) {
+                                instance.webView.loadUrl(url, headers);
+                            } else {
+                                instance.webView.loadUrl(url);
+                            }
+                        }
+                        callbackContext.success("URL loaded: " + url);
+                    } catch (Exception e) {
+                        callbackContext.error("Error loading URL: " + e.getMessage());
+                    }
+                } else {
+                    callbackContext.error("WebView not initialized");
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks that the instance exists, writes the session's cookies in bulk off
+     * the UI thread, then applies its storage entries in one script and swaps the
+     * instance's sub-resource headers. Answers {cookies, storage} with the number
+     * of each applied. Nothing is written for an unknown id.
+     */
+    private void syncSession(final String id, final JSONObject session, final CallbackContext callbackContext) {
+        runOnUiThread("ui.syncSession", () -> {
+            if (registry.get(id) == null) {
+                callbackContext.error("WebView not initialized");
+                return;
+            }
+            cordova.getThreadPool().execute(() -> {
+                final int cookies;
+                try {
+                    cookies = SessionSync.writeCookies(session.optJSONArray("cookies"));
+                } catch (Exception e) {
+                    callbackContext.error("Error writing cookies: " + e.getMessage());
+                    return;
+                }
+                runOnUiThread("ui.syncSession", () -> applySession(id, session, cookies, callbackContext));
+            });
+        });
+    }
+
+    private void applySession(String id, JSONObject session, int cookies, final CallbackContext callbackContext) {
+        WebViewInstance instance = awake(id);
+        if (instance == null) {
+            // Destroyed while the cookies were written
+            callbackContext.error("WebView not initialized");
+            return;
+        }
+        try {
+            if (session.has("headers")) {
+                String url = instance.webView.getUrl();
+                SessionSync.Headers headers = SessionSync.Headers.fromSession(session,
+                        url != null ? ResponseCache.originOf(url) : null);
+                if (headers != null) {
+                    sessionHeaders.put(id, headers);
+                } else {
+                    sessionHeaders.remove(id);
+                }
+            }
+            final JSONObject result = new JSONObject().put("cookies", cookies).put("storage", 0);
+            String script = SessionSync.storageScript(session.optJSONObject("localStorage"),
+                    session.optJSONObject("sessionStorage"));
+            if (script == null) {
+                callbackContext.success(result);
+                return;
+            }
+            instance.webView.evaluateJavascript(script, new ValueCallback<String>() {
+                @Override
+                public void onReceiveValue(String applied) {
+                    try {
+                        result.put("storage", "null".equals(applied) ? 0 : Integer.parseInt(applied));
+                        callbackContext.success(result);
+                    } catch (JSONException | NumberFormatException e) {
+                        callbackContext.error("Error applying storage: " + applied);
+                    }
+                }
+            });
+        } catch (JSONException e) {
+            callbackContext.error("Error syncing session: " + e.getMessage());
+        }
+    }
+
+    private void executeScript(final String id, final String script, final CallbackContext callbackContext) {
+        runOnUiThread("ui.executeScript", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = awake(id);
+                if (instance != null) {
+                    instance.webView.evaluateJavascript(script, new ValueCallback<String>() {
+                        @Override
+                        public void onReceiveValue(String result) {
+                            callbackContext.success(result);
+                        }
+                    });
+                } else {
+                    callbackContext.error("WebView not initialized");
+                }
+            }
+        });
+    }
+
+    private void openChannel(final String id, final String name, final CallbackContext callbackContext) {
+        final Handler handler = getChannelHandler();
+        runOnUiThread("ui.openChannel", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = awake(id);
+                if (instance == null) {
+                    callbackContext.error("WebView not initialized");
+                    return;
+                }
+                String origin = StreamChannel.targetOriginOf(instance.webView.getUrl());
+                if (origin == null) {
+                    callbackContext.error("Channel needs a page with an http(s) origin");
+                    return;
+                }
+                StreamChannel previous = instance.channels.remove(name);
+                if (previous != null) {
+                    previous.close();
+                }
+                StreamChannel channel = new StreamChannel(name, instance.webView, origin, callbackContext, handler);
+                instance.channels.put(name, channel);
+                channels.put(id, instance.channels);
+                channel.open();
+            }
+        });
+    }
+
+    /** Queues the payload on the channel thread without a UI thread hop. */
+    private void channelSend(String id, String name, String payload, boolean binary,
+            CallbackContext callbackContext) {
+        Map<String, StreamChannel> open = channels.get(id);
+        StreamChannel channel = open != null ? open.get(name) : null;
+        if (channel != null) {
+            channel.send(payload, binary, callbackContext);
+        } else {
+            callbackContext.error("Channel not open: " + name);
+        }
+    }
+
+    private void closeChannel(String id, String name, CallbackContext callbackContext) {
+        Map<String, StreamChannel> open = channels.get(id);
+        StreamChannel channel = open != null ? open.remove(name) : null;
+        if (channel != null) {
+            channel.close();
+            callbackContext.success("Channel closed: " + name);
+        } else {
+            callbackContext.error("Channel not open: " + name);
+        }
+    }
+
+    private synchronized Handler getChannelHandler() {
+        if (channelHandler == null) {
+            channelThread = new HandlerThread("EmbeddedWebViewChannel");
+            channelThread.start();
+            channelHandler = new Handler(channelThread.getLooper());
+        }
+        return channelHandler;
+    }
+
+    private void registerScript(final String source, final CallbackContext callbackContext) {
+        final String handle = scripts.register(source);
+        runOnUiThread("ui.registerScript", new Runnable() {
+            @Override
+            public void run() {
+                String installScript = scripts.getInstallScript();
+                for (WebViewInstance instance : registry.all()) {
+                    if (!instance.isHibernated()) {
+                        instance.webView.evaluateJavascript(installScript, null);
+                    }
+                }
+                callbackContext.success(handle);
+            }
+        });
+    }
+
+    private void unregisterScript(final String handle, final CallbackContext callbackContext) {
+        if (scripts.unregister(handle)) {
+            callbackContext.success("Script unregistered: " + handle);
+        } else {
+            callbackContext.error("Unknown script handle: " + handle);
+        }
+    }
+
+    private void invokeScripts(final String id, final JSONArray calls, final CallbackContext callbackContext) {
+        final String script = ScriptRegistry.invocationScript(calls);
+        runOnUiThread("ui.invokeScripts", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = awake(id);
+                if (instance != null) {
+                    instance.webView.evaluateJavascript(script, new ValueCallback<String>() {
+                        @Override
+                        public void onReceiveValue(String result) {
+                            try {
+                                callbackContext.success(new JSONArray(result));
+                            } catch (JSONException e) {
+                                callbackContext.error("Page not ready for script invocation");
+                            }
+                        }
+                    });
+                } else {
+                    callbackContext.error("WebView not initialized");
+                }
+            }
+        });
+    }
+
+    private void setVisible(final String id, final boolean visible, final CallbackContext callbackContext) {
+        runOnUiThread("ui.setVisible", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = visible ? awake(id) : registry.get(id);
+                if (instance != null) {
+                    if (visible) {
+                        instance.setVisible(true);
+                        onInstanceShown(instance);
+                    } else if (instance.isHibernated()) {
+                        instance.restoreVisible = false;
+                    } else {
+                        if (instance.config.placeholder) {
+                            // Drawn now: a window copy would complete after the view is gone
+                            getPreviews().capture(instance.entry, instance.webView.getUrl(), false);
+                        }
+                        instance.setVisible(false);
+                        onInstanceHidden(instance);
+                    }
+                    if (!visible) {
+                        for (WebViewInstance evicted : registry.evictionCandidates(0)) {
+                            evictInstance(evicted);
+                        }
+                    }
+                    callbackContext.success("Visibility changed to: " + visible);
+                } else {
+                    callbackContext.error("WebView not initialized");
+                }
+            }
+        });
+    }
+
+    /**
+     * Moves or resizes the instance in place. Offsets not given keep their current
+     * value; "animate" is a duration in milliseconds.
+     */
+    private void setFrame(final String id, final JSONObject frame, final CallbackContext callbackContext) {
+        runOnUiThread("ui.setFrame", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = registry.get(id);
+                if (instance != null) {
+                    instance.frame = FrameController.Frame.fromOptions(frame, instance.frame);
+                    frames.request(instance, frame.optLong("animate", 0));
+                    callbackContext.success("Frame updated");
+                } else {
+                    callbackContext.error("WebView not initialized");
+                }
+            }
+        });
+    }
+
+    private void reload(final String id, final CallbackContext callbackContext) {
+        runOnUiThread("ui.reload", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = awake(id);
+                if (instance != null) {
+                    instance.webView.reload();
+                    callbackContext.success("WebView reloaded");
+                } else {
+                    callbackContext.error("WebView not initialized");
+                }
+            }
+        });
+    }
+
+    private void goBack(final String id, final CallbackContext callbackContext) {
+        runOnUiThread("ui.goBack", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = awake(id);
+                if (instance != null) {
+                    if (instance.webView.canGoBack()) {
+                        instance.webView.goBack();
+                        callbackContext.success("Navigated back");
+                    } else if (instance.previous != null) {
+                        swapBack(instance);
+                        callbackContext.success("Navigated back");
+                    } else {
+                        callbackContext.error("Cannot go back");
+                    }
+                } else {
+                    callbackContext.error("WebView not initialized");
+                }
+            }
+        });
+    }
+
+    private void goForward(final String id, final CallbackContext callbackContext) {
+        runOnUiThread("ui.goForward", new Runnable() {
+            @Override
+            public void run() {
+                WebViewInstance instance = awake(id);
+                if (instance != null) {
+                    if (instance.webView.canGoForward()) {
+                        instance.webView.goForward();
+                        callbackContext.success("Navigated forward");
+                    } else {
+                        callbackContext.error("Cannot go forward");
+                    }
+                } else {
+                    callbackContext.error("WebView not initialized");
+                }
+            }
+        });
+    }
+
+    /** Posts {@code task} to the UI thread, traced as {@code section}. */
+    private void runOnUiThread(String section, Runnable task) {
+        cordova.getActivity().runOnUiThread(Diagnostics.traced(section, task));
+    }
+
+    private String instanceId(JSONArray args, int index) throws JSONException {
+        return args.isNull(index) ? WebViewRegistry.DEFAULT_ID : args.getString(index);
+    }
+
+    /** Request headers from a JS object; null when there are none. */
+    private Map<String, String> headersOf(JSONObject json) throws JSONException {
+        return json != null && json.length() > 0 ? WebViewConfig.toMap(json) : null;
+    }
+
+    /**
+     * Refreshes the instance's cached back/forward snapshot from its
+     * WebBackForwardList and fires change events. Driven by doUpdateVisitedHistory
+     * and the injected History API hook rather than polling.
+     */
+    private void updateNavigationState(final WebViewInstance instance) {
+        runOnUiThread("ui.updateNavigationState", new Runnable() {
+            @Override
+            public void run() {
+                if (registry.get(instance.id) == instance && !instance.isHibernated()) {
+                    boolean newCanGoBack = instance.canNavigateBack();
+                    boolean newCanGoForward = instance.webView.canGoForward();
+
+                    if (newCanGoBack != instance.canGoBack) {
+                        instance.canGoBack = newCanGoBack;
+                        fireEvent(instance.id, "canGoBackChanged", String.valueOf(instance.canGoBack));
+                    }
+
+                    if (newCanGoForward != instance.canGoForward) {
+                        instance.canGoForward = newCanGoForward;
+                        fireEvent(instance.id, "canGoForwardChanged", String.valueOf(instance.canGoForward));
+                    }
+
+                    try {
+                        JSONObject navigationState = new JSONObject();
+                        navigationState.put("canGoBack", instance.canGoBack);
+                        navigationState.put("canGoForward", instance.canGoForward);
+                        WebBackForwardList history = instance.webView.copyBackForwardList();
+                        navigationState.put("currentIndex", history.getCurrentIndex());
+                        navigationState.put("historySize", history.getSize());
+                        WebHistoryItem current = history.getCurrentItem();
+                        navigationState.put("url", current != null ? current.getUrl() : instance.webView.getUrl());
+                        navigationState.put("title", current != null ? current.getTitle() : instance.webView.getTitle());
+
+                        String previous = instance.navigationState != null ? instance.navigationState.toString() : null;
+                        instance.navigationState = navigationState;
+                        navigationStates.put(instance.id, navigationState);
+                        if (!navigationState.toString().equals(previous)) {
+                            fireEvent(instance.id, "navigationStateChanged", navigationState);
+                        }
+                    } catch (JSONException e) {
+                        Log.e(TAG, "Error building navigation state: " + e.getMessage());
+                    }
+                }
+            }
+        });
+    }
+
+    /** Lets the injected History API hook report pushState/replaceState/popstate. */
+    private class HistoryBridge {
+        private final String id;
+        private final WebView webView;
+
+        HistoryBridge(String id, WebView webView) {
+            this.id = id;
+            this.webView = webView;
+        }
+
+        @JavascriptInterface
+        public void onHistoryChanged() {
+            runOnUiThread("ui.onHistoryChanged", () -> {
+                WebViewInstance instance = activeInstance(id, webView);
+                if (instance != null) {
+                    updateNavigationState(instance);
+                }
+            });
+        }
+    }
+
+    private void getNavigationState(final String id, final CallbackContext callbackContext) {
+        JSONObject navigationState = navigationStates.get(id);
+        if (navigationState != null) {
+            callbackContext.success(navigationState);
+        } else {
+            callbackContext.error("WebView not initialized");
+        }
+    }
+
+    /** Throttles a hidden instance and schedules its freeze after the idle delay. */
+    private void onInstanceHidden(final WebViewInstance instance) {
+        instance.throttle();
+        cancelFreeze(instance);
+        if (freezeDelayMs > 0) {
+            instance.freezeTask = () -> {
+                instance.freezeTask = null;
+                if (registry.get(instance.id) == instance && !instance.isHibernated() && !instance.isVisible()) {
+                    instance.freeze();
+                    if (Diagnostics.info()) {
+                        Log.i(TAG, "Froze hidden WebView: " + instance.id);
+                    }
+                }
+            };
+            lifecycleHandler.postDelayed(instance.freezeTask, freezeDelayMs);
+        }
+    }
+
+    private void onInstanceShown(WebViewInstance instance) {
+        cancelFreeze(instance);
+        if (!activityPaused) {
+            instance.unthrottle();
+        }
+    }
+
+    private void cancelFreeze(WebViewInstance instance) {
+        if (instance.freezeTask != null) {
+            lifecycleHandler.removeCallbacks(instance.freezeTask);
+            instance.freezeTask = null;
+        }
+    }
+
+    /**
+     * Returns the instance with a live, attached view, restoring it if it was
+     * hibernated and thawing it if it was frozen. Must run on the UI thread.
+     */
+    private WebViewInstance awake(String id) {
+        WebViewInstance instance = registry.get(id);
+        if (instance == null) {
+            return null;
+        }
+        if (instance.isHibernated()) {
+            restoreInstance(instance);
+        } else if (instance.frozen) {
+            instance.thaw();
+            if (!instance.isVisible()) {
+                onInstanceHidden(instance);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Saves the back/forward state of an instance and destroys its views. The
+     * instance stays registered and is restored by {@link #awake(String)}.
+     */
+    private void hibernateInstance(WebViewInstance instance) {
+        cancelFreeze(instance);
+        saveSnapshot(instance);
+        instance.savedLayoutParams = instance.layoutParams();
+        instance.restoreVisible = instance.isVisible();
+        getPool().discard(instance.entry);
+        if (instance.previous != null) {
+            getPool().discard(instance.previous);
+            instance.previous = null;
+        }
+        instance.detachEntry();
+        if (Diagnostics.info()) {
+            Log.i(TAG, "Hibernated WebView: " + instance.id);
+        }
+        fireEvent(instance.id, "hibernated", instance.id);
+    }
+
+    /** Rebuilds a hibernated instance hidden, from its last snapshot. */
+    private void restoreInstance(WebViewInstance instance) {
+        FrameLayout.LayoutParams params = instance.savedLayoutParams;
+        instance.savedLayoutParams = null;
+        rebuildInstance(instance, params, false);
+        if (Diagnostics.info()) {
+            Log.i(TAG, "Restored hibernated WebView: " + instance.id);
+        }
+    }
+
+    /**
+     * Gives an instance without a view a fresh one laid out at {@code params}
+     * and brings back its last snapshot, or at least its last known URL.
+     */
+    private void rebuildInstance(WebViewInstance instance, FrameLayout.LayoutParams params, boolean visible) {
+        WebViewPool.Entry entry = getPool().acquire();
+        getPool().configure(entry, instance.config);
+        instance.adopt(entry);
+        attachClients(instance.id, entry, instance);
+
+        ViewGroup contentView = (ViewGroup) cordova.getActivity().findViewById(android.R.id.content);
+        contentView.addView(entry.container, params);
+        frames.track(instance);
+        instance.setVisible(visible);
+
+        if (instance.snapshot != null) {
+            restoreSnapshot(instance, instance.snapshot);
+        } else if (instance.navigationState != null) {
+            String url = instance.navigationState.optString("url", "about:blank");
+            if (instance.config.placeholder) {
+                getPreviews().show(entry, url);
+            }
+            entry.webView.loadUrl(url);
+        }
+
+        if (visible) {
+            onInstanceShown(instance);
+        } else {
+            onInstanceHidden(instance);
+        }
+    }
+
+    /**
+     * Replaces the dead view of whichever instance, retired view or preload owned
+     * {@code entry}. An instance's active view is rebuilt from its last snapshot
+     * unless it already lost its renderer moments ago.
+     */
+    private void recoverFromRendererLoss(String id, WebViewPool.Entry entry, boolean crashed) {
+        WebViewInstance instance = registry.get(id);
+        if (instance != null && instance.entry == entry) {
+            FrameLayout.LayoutParams params = instance.layoutParams();
+            boolean visible = instance.isVisible();
+            cancelFreeze(instance);
+            getPool().discard(entry);
+            instance.detachEntry();
+
+            long now = SystemClock.uptimeMillis();
+            boolean restore = now - instance.recoveredAt > CRASH_LOOP_WINDOW_MS;
+            instance.recoveredAt = now;
+            if (!restore) {
+                instance.snapshot = null;
+                instance.navigationState = null;
+            }
+            rebuildInstance(instance, params, visible);
+
+            try {
+                JSONObject detail = new JSONObject();
+                detail.put("crashed", crashed);
+                detail.put("restored", restore);
+                fireEvent(id, "renderProcessGone", detail);
+            } catch (JSONException e) {
+                Log.e(TAG, "Error building renderProcessGone event: " + e.getMessage());
+            }
+            return;
+        }
+
+        if (instance != null && instance.previous == entry) {
+            instance.previous = null;
+        }
+        PreloadedPage preloaded = preloads.get(id);
+        if (preloaded != null && preloaded.entry == entry) {
+            preloads.remove(id);
+        }
+        getPool().discard(entry);
+    }
+
+    /**
+     * Records the instance's current state as its snapshot, writes it to disk if
+     * the instance persists state, then refreshes the registered storage values.
+     */
+    private void saveSnapshot(final WebViewInstance instance) {
+        if (instance.isHibernated()) {
+            return;
+        }
+        WebView view = instance.webView;
+        String url = view.getUrl();
+        if (url == null || url.equals("about:blank")) {
+            return;
+        }
+        Bundle state = new Bundle();
+        if (view.saveState(state) == null) {
+            state = null;
+        }
+        JSONObject storage = instance.snapshot != null ? instance.snapshot.storage : new JSONObject();
+        instance.snapshot = new StateStore.Snapshot(url, state, view.getScrollX(), view.getScrollY(), storage);
+        if (instance.config.persistState) {
+            getStateStore().save(instance.id, instance.snapshot);
+        }
+
+        if (instance.config.storageKeys != null) {
+            view.evaluateJavascript(READ_STORAGE_SCRIPT + "(" + instance.config.storageKeys + ")", new ValueCallback<String>() {
+                @Override
+                public void onReceiveValue(String result) {
+                    StateStore.Snapshot current = instance.snapshot;
+                    if (current == null || result == null || result.equals(current.storage.toString())) {
+                        return;
+                    }
+                    try {
+                        instance.snapshot = new StateStore.Snapshot(current.url, current.state,
+                                current.scrollX, current.scrollY, new JSONObject(result));
+                        if (instance.config.persistState) {
+                            getStateStore().save(instance.id, instance.snapshot);
+                        }
+                    } catch (JSONException e) {
+                        Log.w(TAG, "Storage values unavailable for " + instance.id);
+                    }
+                }
+            });
+        }
+    }
+
+    /** Loads a snapshot into the instance's view; scroll and storage follow as the page loads. */
+    private void restoreSnapshot(WebViewInstance instance, StateStore.Snapshot snapshot) {
+        instance.pendingRestore = snapshot;
+        if (instance.config.placeholder) {
+            getPreviews().show(instance.entry, snapshot.url);
+        }
+        if (snapshot.state == null || instance.webView.restoreState(snapshot.state) == null) {
+            if (snapshot.url != null) {
+                instance.webView.loadUrl(snapshot.url);
+            } else {
+                instance.pendingRestore = null;
+            }
+        }
+    }
+
+    private void onSnapshotRestored(final WebViewInstance instance) {
+        final StateStore.Snapshot restored = instance.pendingRestore;
+        instance.pendingRestore = null;
+        instance.snapshot = restored;
+        if (restored.scrollX != 0 || restored.scrollY != 0) {
+            final WebView view = instance.webView;
+            view.post(() -> view.scrollTo(restored.scrollX, restored.scrollY));
+        }
+    }
+
+    /**
+     * Drops preloads and idle pooled views and hibernates every hidden instance,
+     * or every instance while the activity is in the background.
+     */
+    private void onMemoryPressure() {
+        runOnUiThread("ui.onMemoryPressure", () -> {
+            for (PreloadedPage preloaded : preloads.values()) {
+                getPool().discard(preloaded.entry);
+            }
+            preloads.clear();
+            for (WebViewInstance instance : registry.all()) {
+                if (!instance.isHibernated() && (activityPaused || !instance.isVisible())) {
+                    hibernateInstance(instance);
+                }
+            }
+            if (webViewPool != null) {
+                webViewPool.clear();
+            }
+        });
+    }
+
+    @Override
+    public void onPause(boolean multitasking) {
+        super.onPause(multitasking);
+        activityPaused = true;
+        WebView anyWebView = null;
+        for (WebViewInstance instance : registry.all()) {
+            if (!instance.isHibernated()) {
+                saveSnapshot(instance);
+                instance.throttle();
+                anyWebView = instance.webView;
+            }
+        }
+        // Timers are process-wide, so follow the app's KeepRunning choice for the Cordova WebView
+        if (anyWebView != null && !preferences.getBoolean("KeepRunning", true)) {
+            anyWebView.pauseTimers();
+            timersPaused = true;
+        }
+    }
+
+    @Override
+    public void onResume(boolean multitasking) {
+        super.onResume(multitasking);
+        activityPaused = false;
+        WebView anyWebView = null;
+        for (WebViewInstance instance : registry.all()) {
+            if (instance.isHibernated() && instance.restoreVisible) {
+                restoreInstance(instance);
+                instance.setVisible(true);
+            }
+            if (instance.isVisible()) {
+                onInstanceShown(instance);
+            }
+            if (!instance.isHibernated()) {
+                anyWebView = instance.webView;
+            }
+        }
+        if (timersPaused && anyWebView != null) {
+            anyWebView.resumeTimers();
+            timersPaused = false;
+        }
+    }
+
+    private void fireEvent(String id, String eventName, Object detail) {
+        if (Diagnostics.debug()) {
+            Log.d(TAG, "Firing event: " + eventName + " for " + id + " with data: " + detail);
+        }
+        eventChannel.post(id, eventName, detail);
+    }
+
+    @Override
+    public void onDestroy() {
+        teardown();
+        webViewPool = null;
+        if (metricsHandler != null) {
+            metricsHandler.removeCallbacks(metricsReporter);
+        }
+        cordova.getActivity().unregisterComponentCallbacks(memoryCallbacks);
+        if (channelThread != null) {
+            channelThread.quitSafely();
+        }
+        super.onDestroy();
+    }
+
+    @Override
+    public void onReset() {
+        teardown();
+        super.onReset();
+    }
+
+    /**
+     * Destroys every instance, preloaded page and pooled view, and clears the
+     * per-instance state. Containers are detached before their views are
+     * destroyed so none stays in the Cordova layout. Must run on the UI thread.
+     */
+    private void teardown() {
+        lifecycleHandler.removeCallbacksAndMessages(null);
+        for (WebViewInstance instance : registry.all()) {
+            registry.remove(instance.id);
+            frames.cancel(instance);
+            instance.closeChannels();
+            if (!instance.isHibernated()) {
+                getPool().discard(instance.entry);
+            }
+            if (instance.previous != null) {
+                getPool().discard(instance.previous);
+                instance.previous = null;
+            }
+        }
+        for (PreloadedPage preloaded : preloads.values()) {
+            getPool().discard(preloaded.entry);
+        }
+        preloads.clear();
+        if (warmup != null) {
+            getPool().discard(warmup);
+            warmup = null;
+        }
+        sessionHeaders.clear();
+        channels.clear();
+        navigationStates.clear();
+        configs.clear();
+        requestFilters.clear();
+        scripts.clear();
+        if (webViewPool != null) {
+            webViewPool.clear();
+        }
+        eventChannel.reset();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,147 @@
+package com.cb4rr.cordova.plugin;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Native to JS event channel. Events are queued, state-like events are coalesced
+ * so only the latest value per instance survives, and the queue is delivered as
+ * one JSON array per frame (or per configured interval) through a keep-callback
+ * PluginResult.
+ */
+class EventChannel implements Choreographer.FrameCallback {
+
+    private static final String TAG = "EmbeddedWebView";
+    private static final int MAX_PENDING_EVENTS = 256;
+
+    private static final Set<String> COALESCED_EVENTS = new HashSet<>(Arrays.asList(
+            "navigationStateChanged",
+            "canGoBackChanged",
+            "canGoForwardChanged",
+            "loadProgress"));
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final long flushIntervalMs;
+    private final Map<String, JSONObject> pending = new LinkedHashMap<>();
+    private CallbackContext callbackContext;
+    private boolean flushScheduled = false;
+    private long sequence = 0;
+
+    private final Runnable scheduleFlush = new Runnable() {
+        @Override
+        public void run() {
+            if (flushIntervalMs > 0) {
+                mainHandler.postDelayed(() -> doFrame(0), flushIntervalMs);
+            } else {
+                Choreographer.getInstance().postFrameCallback(EventChannel.this);
+            }
+        }
+    };
+
+    /** @param flushIntervalMs delay between flushes, 0 to flush once per frame */
+    EventChannel(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /** Registers the JS dispatcher; any events queued before it subscribed are delivered. */
+    synchronized void subscribe(CallbackContext callbackContext) {
+        this.callbackContext = callbackContext;
+        PluginResult result = new PluginResult(PluginResult.Status.NO_RESULT);
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+        if (!pending.isEmpty()) {
+            scheduleFlushLocked();
+        }
+    }
+
+    /** Drops the subscriber and pending events, e.g. when the Cordova page reloads. */
+    synchronized void reset() {
+        callbackContext = null;
+        pending.clear();
+    }
+
+    /**
+     * Queues an event. {@code detail} is a JSONObject or a String. Safe to call
+     * from any thread.
+     */
+    synchronized void post(String id, String eventName, Object detail) {
+        JSONObject event = new JSONObject();
+        try {
+            event.put("type", eventName);
+            event.put("id", id);
+            event.put("detail", detail);
+        } catch (JSONException e) {
+            Log.e(TAG, "Error queueing event: " + e.getMessage());
+            return;
+        }
+
+        String key = COALESCED_EVENTS.contains(eventName)
+                ? id + '\u0000' + eventName
+                : String.valueOf(sequence++);
+        // Re-insert so a coalesced event keeps its place relative to newer events
+        pending.remove(key);
+        pending.put(key, event);
+
+        if (pending.size() > MAX_PENDING_EVENTS) {
+            Iterator<String> oldest = pending.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+
+        if (callbackContext != null) {
+            scheduleFlushLocked();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        flush();
+    }
+
+    synchronized void flush() {
+        flushScheduled = false;
+        if (callbackContext == null || pending.isEmpty()) {
+            return;
+        }
+
+        boolean traced = Diagnostics.beginSection("events.flush");
+        JSONArray batch = new JSONArray();
+        for (JSONObject event : pending.values()) {
+            batch.put(event);
+        }
+        pending.clear();
+
+        PluginResult result = new PluginResult(PluginResult.Status.OK, batch);
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+        Diagnostics.endSection(traced);
+    }
+
+    private void scheduleFlushLocked() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        // Choreographer instances are per-thread, always schedule from the main thread
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            scheduleFlush.run();
+        } else {
+            mainHandler.post(scheduleFlush);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONObject;
+
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowInsets;
+import android.widget.FrameLayout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Positions instance containers from their requested frame plus the current
+ * safe-area insets. Changes are queued and applied together on the next vsync,
+ * so several setFrame() calls or inset updates within one frame cost a single
+ * layout pass. Animated changes lay out at the target frame immediately and
+ * animate only the translation on a hardware layer, so each frame recomposites
+ * the container without redrawing the page. The animator still steps on the UI
+ * thread's Choreographer: there is no public render-thread animator for view
+ * properties, so a stalled UI thread also stalls the slide.
+ */
+class FrameController implements Choreographer.FrameCallback {
+
+    /** Offsets requested by JS, in pixels; a height of 0 fills down to the bottom offset. */
+    static class Frame {
+        final int top;
+        final int bottom;
+        final int height;
+        final int left;
+        final int right;
+
+        Frame(int top, int bottom, int height, int left, int right) {
+            this.top = top;
+            this.bottom = bottom;
+            this.height = height;
+            this.left = left;
+            this.right = right;
+        }
+
+        /** Values in {@code options} override those of {@code base}, which may be null. */
+        static Frame fromOptions(JSONObject options, Frame base) {
+            return new Frame(
+                    options.optInt("top", base != null ? base.top : 0),
+                    options.optInt("bottom", base != null ? base.bottom : 0),
+                    options.optInt("height", base != null ? base.height : 0),
+                    options.optInt("left", base != null ? base.left : 0),
+                    options.optInt("right", base != null ? base.right : 0));
+        }
+    }
+
+    /** Safe-area insets the container must keep clear of. */
+    static class SafeArea {
+        static final SafeArea NONE = new SafeArea(0, 0, 0, 0);
+
+        final int top;
+        final int bottom;
+        final int left;
+        final int right;
+
+        SafeArea(int top, int bottom, int left, int right) {
+            this.top = top;
+            this.bottom = bottom;
+            this.left = left;
+            this.right = right;
+        }
+
+        boolean sameAs(SafeArea other) {
+            return other != null && top == other.top && bottom == other.bottom
+                    && left == other.left && right == other.right;
+        }
+    }
+
+    private final View cordovaView;
+    /** Instances with a queued layout, mapped to their animation duration in milliseconds. */
+    private final Map<WebViewInstance, Long> pending = new LinkedHashMap<>();
+    private boolean scheduled = false;
+
+    FrameController(View cordovaView) {
+        this.cordovaView = cordovaView;
+    }
+
+    /**
+     * Insets the container has to respect: the larger of the cutout and the system
+     * bars, or none when the Cordova WebView already consumes them.
+     */
+    SafeArea safeAreaOf(WindowInsets insets) {
+        if (insets == null || cordovaView.getFitsSystemWindows()) {
+            return SafeArea.NONE;
+        }
+        int top = 0;
+        int bottom = 0;
+        int left = 0;
+        int right = 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            android.view.DisplayCutout cutout = insets.getDisplayCutout();
+            if (cutout != null) {
+                top = cutout.getSafeInsetTop();
+                bottom = cutout.getSafeInsetBottom();
+                left = cutout.getSafeInsetLeft();
+                right = cutout.getSafeInsetRight();
+            }
+        }
+        return new SafeArea(
+                Math.max(top, insets.getSystemWindowInsetTop()),
+                Math.max(bottom, insets.getSystemWindowInsetBottom()),
+                Math.max(left, insets.getSystemWindowInsetLeft()),
+                Math.max(right, insets.getSystemWindowInsetRight()));
+    }
+
+    static FrameLayout.LayoutParams layoutParams(Frame frame, SafeArea safeArea) {
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT,
+                frame.height > 0 ? frame.height : ViewGroup.LayoutParams.MATCH_PARENT);
+        params.topMargin = safeArea.top + frame.top;
+        params.bottomMargin = safeArea.bottom + frame.bottom;
+        params.leftMargin = safeArea.left + frame.left;
+        params.rightMargin = safeArea.right + frame.right;
+        return params;
+    }
+
+    /**
+     * Keeps the instance's safe area current: whenever insets reach its container
+     * (rotation, keyboard, system bars) the frame is re-applied if they changed.
+     */
+    void track(final WebViewInstance instance) {
+        instance.container.setOnApplyWindowInsetsListener(new View.OnApplyWindowInsetsListener() {
+            @Override
+            public WindowInsets onApplyWindowInsets(View v, WindowInsets insets) {
+                SafeArea safeArea = safeAreaOf(insets);
+                if (!safeArea.sameAs(instance.safeArea)) {
+                    instance.safeArea = safeArea;
+                    request(instance, 0);
+                }
+                return v.onApplyWindowInsets(insets);
+            }
+        });
+        instance.container.requestApplyInsets();
+    }
+
+    /** Queues a layout of the instance for the next frame. Must run on the UI thread. */
+    void request(WebViewInstance instance, long animateMs) {
+        pending.put(instance, animateMs);
+        if (!scheduled) {
+            scheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    void cancel(WebViewInstance instance) {
+        pending.remove(instance);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        scheduled = false;
+        for (Map.Entry<WebViewInstance, Long> entry : pending.entrySet()) {
+            apply(entry.getKey(), entry.getValue());
+        }
+        pending.clear();
+    }
+
+    private void apply(WebViewInstance instance, long animateMs) {
+        FrameLayout.LayoutParams target = layoutParams(instance.frame, instance.safeArea);
+        if (instance.isHibernated()) {
+            instance.savedLayoutParams = target;
+            return;
+        }
+        FrameLayout container = instance.container;
+        FrameLayout.LayoutParams current = (FrameLayout.LayoutParams) container.getLayoutParams();
+        container.animate().cancel();
+        container.setLayoutParams(target);
+
+        if (animateMs > 0 && current != null && instance.isVisible()) {
+            // Start from where the old frame was drawn and slide into the new one
+            container.setTranslationX(container.getTranslationX() + current.leftMargin - target.leftMargin);
+            container.setTranslationY(container.getTranslationY() + current.topMargin - target.topMargin);
+            container.animate().translationX(0).translationY(0).setDuration(animateMs).withLayer().start();
+        } else {
+            container.setTranslationX(0);
+            container.setTranslationY(0);
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.util.Log;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Downscales JPEG and PNG sub-resources of opted-in origins to the width of the
+ * WebView showing them and re-encodes them as WebP. Fetch, decode and encode run
+ * on a small bounded executor so a gallery page cannot decode dozens of
+ * full-size images at once; when the executor is saturated the request goes to
+ * the network untouched. Results are kept in a size-bounded disk LRU keyed by
+ * URL and target width, fresh for as long as the original was and revalidated
+ * with its ETag/Last-Modified afterwards.
+ */
+class ImageTranscoder {
+
+    private static final String TAG = "EmbeddedWebView";
+    private static final int THREADS = 2;
+    private static final int MAX_QUEUED = 16;
+    /**
+     * Longest a WebView network thread waits for a result before loading the
+     * original itself; those threads also serve the page's other sub-resources.
+     */
+    private static final long TIMEOUT_MS = 3000;
+    /** Target widths are rounded up to a multiple of this so nearby view sizes share cache entries. */
+    private static final int WIDTH_STEP = 64;
+
+    /** Which images an instance transcodes, from the create() "imageTranscoding" option. */
+    static class Rules {
+        /** Origin rules: "*", "https://example.com" or "https://*.example.com". */
+        private final List<String> origins = new ArrayList<>();
+        final int quality;
+
+        private Rules(int quality) {
+            this.quality = quality;
+        }
+
+        /**
+         * Parses {@code {origins: [rules], quality}}. Without origins every origin
+         * is transcoded. Returns null when the option is absent.
+         */
+        static Rules fromOptions(JSONObject options) throws JSONException {
+            JSONObject config = options.optJSONObject("imageTranscoding");
+            if (config == null) {
+                return null;
+            }
+            Rules rules = new Rules(Math.max(1, Math.min(100, config.optInt("quality", 75))));
+            JSONArray origins = config.optJSONArray("origins");
+            for (int i = 0; origins != null && i < origins.length(); i++) {
+                rules.origins.add(origins.getString(i).toLowerCase(Locale.US));
+            }
+            if (rules.origins.isEmpty()) {
+                rules.origins.add("*");
+            }
+            return rules;
+        }
+
+        boolean matches(String origin) {
+            for (String rule : origins) {
+                if (ResponseCache.originMatches(rule, origin)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Receives bytes saved by a transcoded image, keyed by the image's origin. */
+    interface SavingsListener {
+        void onBytesSaved(String origin, long bytes);
+    }
+
+    /**
+     * One cached image: the bytes served, the size of the original they replace,
+     * the original's freshness and validators, and its CORS headers.
+     */
+    private static class Entry {
+        final String key;
+        String mimeType;
+        long size;
+        long originalSize;
+        long expiresAt;
+        String etag;
+        String lastModified;
+        /** {@link #corsHeadersOf} the original, served again with the image. */
+        Map<String, String> corsHeaders = new HashMap<>();
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("mimeType", mimeType);
+            json.put("size", size);
+            json.put("originalSize", originalSize);
+            json.put("expiresAt", expiresAt);
+            json.put("etag", etag);
+            json.put("lastModified", lastModified);
+            json.put("corsHeaders", new JSONObject(corsHeaders));
+            return json;
+        }
+
+        static Entry fromJson(String key, JSONObject json) throws JSONException {
+            Entry entry = new Entry(key);
+            entry.mimeType = json.getString("mimeType");
+            entry.size = json.getLong("size");
+            entry.originalSize = json.getLong("originalSize");
+            entry.expiresAt = json.optLong("expiresAt", 0);
+            entry.etag = json.optString("etag", null);
+            entry.lastModified = json.optString("lastModified", null);
+            JSONObject corsHeaders = json.optJSONObject("corsHeaders");
+            if (corsHeaders != null) {
+                entry.corsHeaders = new HashMap<>(WebViewConfig.toMap(corsHeaders));
+            }
+            return entry;
+        }
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(MAX_QUEUED));
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes = 0;
+    private boolean loaded = false;
+
+    private long hits = 0;
+    private long transcoded = 0;
+    private long passedThrough = 0;
+    private long bypassed = 0;
+    private long bytesIn = 0;
+    private long bytesOut = 0;
+    private long bytesSaved = 0;
+
+    ImageTranscoder(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Serves {@code request} as an image scaled to {@code targetWidth} pixels when
+     * the rules cover it. Returns null to let the WebView load it normally.
+     * {@code savedBytes} receives the origin and the bytes saved by each
+     * transcoded or cached response. Called on the WebView's network thread.
+     */
+    WebResourceResponse intercept(final Rules rules, WebResourceRequest request, int targetWidth,
+            final SavingsListener savedBytes) {
+        if (rules == null || targetWidth <= 0 || !"GET".equalsIgnoreCase(request.getMethod())
+                || !isImageRequest(request)) {
+            return null;
+        }
+        final String url = request.getUrl().toString();
+        String scheme = request.getUrl().getScheme();
+        final String origin = ResponseCache.originOf(url);
+        if (!("http".equals(scheme) || "https".equals(scheme)) || !rules.matches(origin)
+                || ResponseCache.hasCredentials(request.getRequestHeaders())) {
+            return null;
+        }
+
+        final int width = (targetWidth + WIDTH_STEP - 1) / WIDTH_STEP * WIDTH_STEP;
+        final String key = ResponseCache.keyFor(url + "@" + width);
+        final Map<String, String> requestHeaders = request.getRequestHeaders();
+        Future<WebResourceResponse> result;
+        try {
+            result = executor.submit(new Callable<WebResourceResponse>() {
+                @Override
+                public WebResourceResponse call() throws Exception {
+                    return load(key, url, requestHeaders, width, rules.quality, origin, savedBytes);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            recordBypass();
+            return null;
+        }
+
+        try {
+            return result.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Log.w(TAG, "Image transcoding bypassed for " + url + ": " + e.getMessage());
+        }
+        result.cancel(true);
+        recordBypass();
+        return null;
+    }
+
+    /** Deletes every cached image. Blocking; run off the UI thread. */
+    synchronized void clear() {
+        for (Entry entry : index.values()) {
+            bodyFile(entry.key).delete();
+            metaFile(entry.key).delete();
+        }
+        index.clear();
+        totalBytes = 0;
+    }
+
+    synchronized JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("transcoded", transcoded);
+        stats.put("hits", hits);
+        stats.put("passedThrough", passedThrough);
+        stats.put("bypassed", bypassed);
+        stats.put("bytesIn", bytesIn);
+        stats.put("bytesOut", bytesOut);
+        stats.put("bytesSaved", bytesSaved);
+        stats.put("entries", index.size());
+        stats.put("sizeBytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+
+    /**
+     * Runs on the executor: the cached image while fresh or once revalidated, or a
+     * fetched and transcoded one.
+     */
+    private WebResourceResponse load(String key, String url, Map<String, String> requestHeaders, int width,
+            int quality, String origin, SavingsListener savedBytes) throws Exception {
+        ensureLoaded();
+        Entry entry;
+        long entryExpiresAt = 0;
+        synchronized (this) {
+            entry = index.get(key);
+            if (entry != null) {
+                entryExpiresAt = entry.expiresAt;
+            }
+        }
+        ResponseCache.Fetched fetched = null;
+        if (entry != null) {
+            boolean fresh = System.currentTimeMillis() < entryExpiresAt;
+            if (!fresh && (entry.etag != null || entry.lastModified != null)) {
+                fetched = ResponseCache.fetch(url, requestHeaders, entry.etag, entry.lastModified);
+                if (fetched.status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    // A 304 may update freshness; validators it omits stay those of the entry
+                    Map<String, String> headers = validatorsOf(entry);
+                    headers.putAll(fetched.headers);
+                    entryExpiresAt = ResponseCache.expiresAt(headers, 0);
+                    synchronized (this) {
+                        entry.expiresAt = entryExpiresAt;
+                        entry.corsHeaders.putAll(corsHeadersOf(fetched.headers));
+                        if (index.get(key) == entry) {
+                            writeMeta(entry);
+                        }
+                    }
+                    fresh = true;
+                }
+            }
+            byte[] body = fresh ? readBody(entry) : null;
+            if (body != null) {
+                long saved = entry.originalSize - entry.size;
+                synchronized (this) {
+                    hits++;
+                    bytesSaved += saved;
+                }
+                if (saved > 0) {
+                    savedBytes.onBytesSaved(origin, saved);
+                }
+                Map<String, String> corsHeaders;
+                synchronized (this) {
+                    corsHeaders = new HashMap<>(entry.corsHeaders);
+                }
+                return toResponse(entry.mimeType, body, entryExpiresAt, corsHeaders);
+            }
+        }
+
+        if (fetched == null || fetched.status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            fetched = ResponseCache.fetch(url, requestHeaders, null, null);
+        }
+        String mimeType = mimeTypeOf(fetched.headers.get("content-type"));
+        if (fetched.status != HttpURLConnection.HTTP_OK || !isTranscodable(mimeType)) {
+            synchronized (this) {
+                passedThrough++;
+            }
+            return ResponseCache.passThrough(url, fetched);
+        }
+
+        long expiresAt = ResponseCache.expiresAt(fetched.headers, 0);
+        byte[] body = transcode(fetched.body, width, quality);
+        String servedType = "image/webp";
+        if (body == null || body.length >= fetched.body.length) {
+            // Already small enough: remember that, so it is not decoded again
+            body = fetched.body;
+            servedType = mimeType;
+            synchronized (this) {
+                passedThrough++;
+            }
+        } else {
+            long saved = fetched.body.length - body.length;
+            synchronized (this) {
+                transcoded++;
+                bytesIn += fetched.body.length;
+                bytesOut += body.length;
+                bytesSaved += saved;
+            }
+            savedBytes.onBytesSaved(origin, saved);
+        }
+        Entry stored = new Entry(key);
+        stored.mimeType = servedType;
+        stored.size = body.length;
+        stored.originalSize = fetched.body.length;
+        stored.expiresAt = expiresAt;
+        stored.etag = fetched.headers.get("etag");
+        stored.lastModified = fetched.headers.get("last-modified");
+        stored.corsHeaders = corsHeadersOf(fetched.headers);
+        // Never fresh and impossible to revalidate: every use would fetch it again
+        boolean useless = expiresAt == 0 && stored.etag == null && stored.lastModified == null;
+        if (!useless && ResponseCache.isStorable(fetched.headers)) {
+            store(stored, body);
+        }
+        return toResponse(servedType, body, expiresAt, stored.corsHeaders);
+    }
+
+    /**
+     * Decodes {@code data} subsampled to at most twice {@code width}, scales it to
+     * {@code width} and encodes it as WebP. Returns null if it cannot be decoded.
+     */
+    private static byte[] transcode(byte[] data, int width, int quality) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            return null;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = 1;
+        while (bounds.outWidth / (options.inSampleSize * 2) >= width) {
+            options.inSampleSize *= 2;
+        }
+        Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (bitmap == null) {
+            return null;
+        }
+        try {
+            if (bitmap.getWidth() > width) {
+                int height = Math.max(1, Math.round(bitmap.getHeight() * (float) width / bitmap.getWidth()));
+                Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+                if (scaled != bitmap) {
+                    bitmap.recycle();
+                    bitmap = scaled;
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+            bitmap.compress(webpFormat(), quality, out);
+            return out.toByteArray();
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+
+    /** Image element loads announce themselves with an image Accept header. */
+    private static boolean isImageRequest(WebResourceRequest request) {
+        for (Map.Entry<String, String> header : request.getRequestHeaders().entrySet()) {
+            if ("accept".equalsIgnoreCase(header.getKey())) {
+                return header.getValue().startsWith("image/");
+            }
+        }
+        String path = request.getUrl().getPath();
+        if (path == null) {
+            return false;
+        }
+        path = path.toLowerCase(Locale.US);
+        return path.endsWith(".jpg") || path.endsWith(".jpeg") || path.endsWith(".png");
+    }
+
+    private static boolean isTranscodable(String mimeType) {
+        return mimeType.equals("image/jpeg") || mimeType.equals("image/png");
+    }
+
+    private static String mimeTypeOf(String contentType) {
+        if (contentType == null) {
+            return "application/octet-stream";
+        }
+        int separator = contentType.indexOf(';');
+        return (separator >= 0 ? contentType.substring(0, separator) : contentType).trim().toLowerCase(Locale.US);
+    }
+
+    /**
+     * The Access-Control-* and Timing-Allow-Origin headers of a (lower-cased)
+     * response, without which a crossorigin image or canvas texture fails its checks.
+     */
+    private static Map<String, String> corsHeadersOf(Map<String, String> headers) {
+        Map<String, String> cors = new HashMap<>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().startsWith("access-control-") || header.getKey().equals("timing-allow-origin")) {
+                cors.put(header.getKey(), header.getValue());
+            }
+        }
+        return cors;
+    }
+
+    /**
+     * Serves {@code body} to the WebView as fresh for as long as the original
+     * image is, with the original's CORS headers.
+     */
+    private static WebResourceResponse toResponse(String mimeType, byte[] body, long expiresAt,
+            Map<String, String> corsHeaders) {
+        long maxAge = (expiresAt - System.currentTimeMillis()) / 1000;
+        Map<String, String> headers = new HashMap<>(corsHeaders);
+        headers.put("Cache-Control", maxAge > 0 ? "max-age=" + maxAge : "no-cache");
+        return new WebResourceResponse(mimeType, null, 200, "OK", headers, new ByteArrayInputStream(body));
+    }
+
+    private synchronized void recordBypass() {
+        bypassed++;
+    }
+
+    /** Builds the in-memory index from disk once. Blocking; run off the UI thread. */
+    private synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Unable to create image cache directory");
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(".meta")) {
+                continue;
+            }
+            String key = name.substring(0, name.length() - ".meta".length());
+            try {
+                Entry entry = Entry.fromJson(key,
+                        new JSONObject(new String(ResponseCache.readFile(file), StandardCharsets.UTF_8)));
+                if (bodyFile(key).length() == entry.size) {
+                    index.put(key, entry);
+                    totalBytes += entry.size;
+                    continue;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Dropping unreadable image cache entry " + key);
+            }
+            file.delete();
+            bodyFile(key).delete();
+        }
+        trimToSize();
+    }
+
+    private void store(Entry entry, byte[] body) {
+        String key = entry.key;
+        if (entry.size > maxBytes) {
+            return;
+        }
+        try {
+            File tmp = new File(directory, key + ".tmp");
+            ResponseCache.writeFile(tmp, body);
+            synchronized (this) {
+                Entry previous = index.remove(key);
+                if (previous != null) {
+                    totalBytes -= previous.size;
+                }
+                if (!tmp.renameTo(bodyFile(key))) {
+                    tmp.delete();
+                    metaFile(key).delete();
+                    return;
+                }
+                writeMeta(entry);
+                index.put(key, entry);
+                totalBytes += entry.size;
+                trimToSize();
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error storing transcoded image: " + e.getMessage());
+        }
+    }
+
+    private void writeMeta(Entry entry) throws IOException, JSONException {
+        ResponseCache.writeFile(metaFile(entry.key), entry.toJson().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> validatorsOf(Entry entry) {
+        Map<String, String> headers = new HashMap<>();
+        if (entry.etag != null) {
+            headers.put("etag", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            headers.put("last-modified", entry.lastModified);
+        }
+        return headers;
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> eldest = index.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.size;
+            bodyFile(entry.key).delete();
+            metaFile(entry.key).delete();
+        }
+    }
+
+    private byte[] readBody(Entry entry) {
+        try {
+            return ResponseCache.readFile(bodyFile(entry.key));
+        } catch (Exception e) {
+            synchronized (this) {
+                if (index.remove(entry.key) != null) {
+                    totalBytes -= entry.size;
+                }
+            }
+            return null;
+        }
+    }
+
+    private File bodyFile(String key) {
+        return new File(directory, key + ".img");
+    }
+
+    private File metaFile(String key) {
+        return new File(directory, key + ".meta");
+    }
+}
@@ -0,0 +1,143 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-origin rolling latency histograms. Each metric keeps a fixed ring of
+ * recent samples and the least recently updated origins are dropped, so memory
+ * stays bounded no matter how many pages are visited.
+ */
+class PageMetrics {
+
+    private static final int SAMPLES_PER_METRIC = 128;
+    private static final int MAX_ORIGINS = 32;
+
+    /**
+     * Navigation Timing and paint entries for the current document, as a flat
+     * object of millisecond values.
+     */
+    static final String PAGE_TIMING_SCRIPT = "(function(){var r={};"
+            + "if(!window.performance||!performance.getEntriesByType){return r;}"
+            + "var n=performance.getEntriesByType('navigation')[0];"
+            + "if(n){"
+            + "r.dns=n.domainLookupEnd-n.domainLookupStart;"
+            + "r.connect=n.connectEnd-n.connectStart;"
+            + "r.tls=n.secureConnectionStart>0?n.connectEnd-n.secureConnectionStart:0;"
+            + "r.ttfb=n.responseStart-n.requestStart;"
+            + "r.download=n.responseEnd-n.responseStart;"
+            + "r.domInteractive=n.domInteractive;"
+            + "r.domContentLoaded=n.domContentLoadedEventEnd;"
+            + "r.load=n.loadEventEnd>0?n.loadEventEnd:n.duration;"
+            + "}"
+            + "performance.getEntriesByType('paint').forEach(function(p){"
+            + "if(p.name==='first-paint'){r.firstPaint=p.startTime;}"
+            + "if(p.name==='first-contentful-paint'){r.firstContentfulPaint=p.startTime;}"
+            + "});"
+            + "return r;})()";
+
+    private static class Histogram {
+        private final double[] samples = new double[SAMPLES_PER_METRIC];
+        private long total = 0;
+
+        void add(double value) {
+            samples[(int) (total % SAMPLES_PER_METRIC)] = value;
+            total++;
+        }
+
+        JSONObject toJson() throws JSONException {
+            int size = (int) Math.min(total, SAMPLES_PER_METRIC);
+            double[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            JSONObject json = new JSONObject();
+            json.put("count", total);
+            json.put("p50", percentile(sorted, 0.50));
+            json.put("p95", percentile(sorted, 0.95));
+            json.put("p99", percentile(sorted, 0.99));
+            json.put("max", size > 0 ? sorted[size - 1] : 0);
+            return json;
+        }
+
+        private static double percentile(double[] sorted, double rank) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(rank * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    private final Map<String, Map<String, Histogram>> origins =
+            new LinkedHashMap<String, Map<String, Histogram>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, Histogram>> eldest) {
+                    return size() > MAX_ORIGINS;
+                }
+            };
+
+    synchronized void record(String origin, String metric, double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            return;
+        }
+        Map<String, Histogram> metrics = origins.get(origin);
+        if (metrics == null) {
+            metrics = new LinkedHashMap<>();
+            origins.put(origin, metrics);
+        }
+        Histogram histogram = metrics.get(metric);
+        if (histogram == null) {
+            histogram = new Histogram();
+            metrics.put(metric, histogram);
+        }
+        histogram.add(value);
+    }
+
+    /** Records every numeric value of a {@link #PAGE_TIMING_SCRIPT} result. */
+    synchronized void recordPageTiming(String origin, JSONObject timing) {
+        Iterator<String> names = timing.keys();
+        while (names.hasNext()) {
+            String name = names.next();
+            double value = timing.optDouble(name, Double.NaN);
+            record(origin, name, value);
+        }
+    }
+
+    /** The median of the recent samples of {@code metric}, or NaN when there are none. */
+    synchronized double median(String origin, String metric) {
+        Map<String, Histogram> metrics = origins.get(origin);
+        Histogram histogram = metrics != null ? metrics.get(metric) : null;
+        if (histogram == null) {
+            return Double.NaN;
+        }
+        int size = (int) Math.min(histogram.total, SAMPLES_PER_METRIC);
+        double[] sorted = Arrays.copyOf(histogram.samples, size);
+        Arrays.sort(sorted);
+        return Histogram.percentile(sorted, 0.50);
+    }
+
+    synchronized boolean isEmpty() {
+        return origins.isEmpty();
+    }
+
+    synchronized void reset() {
+        origins.clear();
+    }
+
+    /** {origin: {metric: {count, p50, p95, p99, max}}} */
+    synchronized JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<String, Map<String, Histogram>> origin : origins.entrySet()) {
+            JSONObject metrics = new JSONObject();
+            for (Map.Entry<String, Histogram> metric : origin.getValue().entrySet()) {
+                metrics.put(metric.getKey(), metric.getValue().toJson());
+            }
+            json.put(origin.getKey(), metrics);
+        }
+        return json;
+    }
+}
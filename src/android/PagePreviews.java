@@ -0,0 +1,223 @@
+package com.cb4rr.cordova.plugin;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.PixelCopy;
+import android.view.ViewGroup;
+import android.webkit.WebView;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Executor;
+
+/**
+ * Downscaled pictures of rendered pages, shown over a container while the same
+ * URL loads again and cross-faded out at its first visual commit. Captures use
+ * PixelCopy from the window when the page is on screen and a scaled draw
+ * otherwise; JPEG encoding, disk writes and decodes run on the executor. The
+ * memory LRU holds recent bitmaps; every capture is also written to a
+ * size-bounded directory so previews survive eviction and restarts. UI-thread
+ * methods are marked as such.
+ */
+class PagePreviews {
+
+    private static final String TAG = "EmbeddedWebView";
+    /** Previews are captured at half size, and never wider than this. */
+    private static final float SCALE = 0.5f;
+    private static final int MAX_WIDTH = 720;
+    private static final int JPEG_QUALITY = 70;
+    private static final long FADE_MS = 200;
+
+    private final Activity activity;
+    private final File directory;
+    private final long maxDiskBytes;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Bitmap> memory;
+
+    PagePreviews(Activity activity, File directory, int maxMemoryBytes, long maxDiskBytes, Executor executor) {
+        this.activity = activity;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.executor = executor;
+        this.memory = new LruCache<String, Bitmap>(Math.max(1, maxMemoryBytes)) {
+            @Override
+            protected int sizeOf(String url, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Captures the page {@code entry} shows as the preview of {@code url}.
+     * {@code onScreen} means nothing is drawn over the WebView, so its pixels can
+     * be copied from the window instead of redrawn. UI thread.
+     */
+    void capture(WebViewPool.Entry entry, final String url, boolean onScreen) {
+        WebView view = entry.webView;
+        int width = view.getWidth();
+        int height = view.getHeight();
+        if (url == null || !url.startsWith("http") || width == 0 || height == 0 || entry.placeholder != null) {
+            return;
+        }
+        float scale = Math.min(SCALE, (float) MAX_WIDTH / width);
+        final Bitmap bitmap = Bitmap.createBitmap(Math.max(1, Math.round(width * scale)),
+                Math.max(1, Math.round(height * scale)), Bitmap.Config.ARGB_8888);
+
+        if (onScreen && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && view.isShown()) {
+            int[] location = new int[2];
+            view.getLocationInWindow(location);
+            Rect source = new Rect(location[0], location[1], location[0] + width, location[1] + height);
+            PixelCopy.request(activity.getWindow(), source, bitmap, new PixelCopy.OnPixelCopyFinishedListener() {
+                @Override
+                public void onPixelCopyFinished(int result) {
+                    if (result == PixelCopy.SUCCESS) {
+                        store(url, bitmap);
+                    } else {
+                        bitmap.recycle();
+                    }
+                }
+            }, mainHandler);
+            return;
+        }
+
+        Canvas canvas = new Canvas(bitmap);
+        canvas.scale(scale, scale);
+        view.draw(canvas);
+        store(url, bitmap);
+    }
+
+    /**
+     * Shows the preview of {@code url} over the WebView of {@code entry} if there
+     * is one, from memory at once or after decoding it from disk. UI thread.
+     */
+    void show(final WebViewPool.Entry entry, final String url) {
+        dismiss(entry, false);
+        if (url == null) {
+            return;
+        }
+        entry.placeholderUrl = url;
+        Bitmap bitmap = memory.get(url);
+        if (bitmap != null) {
+            attach(entry, bitmap);
+            return;
+        }
+        final File file = fileFor(url);
+        executor.execute(() -> {
+            if (!file.isFile()) {
+                return;
+            }
+            final Bitmap decoded = BitmapFactory.decodeFile(file.getPath());
+            if (decoded == null) {
+                return;
+            }
+            file.setLastModified(System.currentTimeMillis());
+            mainHandler.post(() -> {
+                memory.put(url, decoded);
+                if (url.equals(entry.placeholderUrl) && entry.placeholder == null) {
+                    attach(entry, decoded);
+                }
+            });
+        });
+    }
+
+    /** Removes the preview of {@code entry}, fading it out if asked. UI thread. */
+    void dismiss(final WebViewPool.Entry entry, boolean fade) {
+        entry.placeholderUrl = null;
+        final ImageView placeholder = entry.placeholder;
+        if (placeholder == null) {
+            return;
+        }
+        if (!fade) {
+            entry.removePlaceholder();
+            return;
+        }
+        placeholder.animate().alpha(0f).setDuration(FADE_MS).withEndAction(() -> {
+            if (entry.placeholder == placeholder) {
+                entry.removePlaceholder();
+            }
+        });
+    }
+
+    /** Drops every preview from memory and disk. Blocking; run off the UI thread. */
+    void clear() {
+        memory.evictAll();
+        File[] files = directory.listFiles();
+        for (int i = 0; files != null && i < files.length; i++) {
+            files[i].delete();
+        }
+    }
+
+    private void attach(WebViewPool.Entry entry, Bitmap bitmap) {
+        ImageView placeholder = new ImageView(activity);
+        placeholder.setScaleType(ImageView.ScaleType.FIT_START);
+        placeholder.setImageBitmap(bitmap);
+        // Above the WebView, below the progress bar
+        entry.container.addView(placeholder, 1, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        entry.placeholder = placeholder;
+    }
+
+    private void store(final String url, final Bitmap bitmap) {
+        memory.put(url, bitmap);
+        executor.execute(() -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+            try {
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    return;
+                }
+                File file = fileFor(url);
+                File tmp = new File(directory, file.getName() + ".tmp");
+                ResponseCache.writeFile(tmp, out.toByteArray());
+                if (!tmp.renameTo(file)) {
+                    tmp.delete();
+                }
+                trimDisk();
+            } catch (Exception e) {
+                Log.w(TAG, "Error writing page preview: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Deletes the least recently used files until the directory fits its budget. */
+    private void trimDisk() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxDiskBytes) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (int i = 0; i < files.length && total > maxDiskBytes; i++) {
+            total -= files[i].length();
+            files[i].delete();
+        }
+    }
+
+    private File fileFor(String url) {
+        return new File(directory, ResponseCache.keyFor(url) + ".jpg");
+    }
+}
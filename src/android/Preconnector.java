@@ -0,0 +1,137 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Connection warm-up for origins a page is about to use. Host names are resolved
+ * on the executor, which fills the system resolver cache the WebView also reads,
+ * and {@link #hintsPage} gives a hidden WebView preconnect hints so Chromium opens
+ * the TCP and TLS connections in its shared socket pool. The setup time of later
+ * page loads is recorded apart for warmed and cold origins so the saving shows in
+ * the metrics.
+ */
+class Preconnector {
+
+    private static final String TAG = "EmbeddedWebView";
+    /** Chromium closes preconnected sockets that stay unused for about this long. */
+    static final long FRESH_MS = 10_000;
+    private static final int MAX_ORIGINS = 32;
+
+    private final PageMetrics metrics;
+    /** Uptime of the last warm-up by origin, eldest first; pruned as entries go stale. */
+    private final LinkedHashMap<String, Long> warmedAt = new LinkedHashMap<>();
+
+    Preconnector(PageMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** The distinct http(s) origins of {@code urls}; empty for null. */
+    static List<String> originsOf(JSONArray urls) {
+        if (urls == null) {
+            return Collections.emptyList();
+        }
+        Set<String> origins = new LinkedHashSet<>();
+        for (int i = 0; i < urls.length() && origins.size() < MAX_ORIGINS; i++) {
+            String url = urls.optString(i, "");
+            if (url.startsWith("http://") || url.startsWith("https://")) {
+                origins.add(ResponseCache.originOf(url));
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(origins));
+    }
+
+    /** A blank document carrying dns-prefetch and preconnect hints for {@code origins}. */
+    static String hintsPage(List<String> origins) {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head>");
+        for (String origin : origins) {
+            String href = origin.replace("&", "&amp;").replace("\"", "&quot;");
+            html.append("<link rel=\"dns-prefetch\" href=\"").append(href).append("\">");
+            html.append("<link rel=\"preconnect\" href=\"").append(href).append("\">");
+            // Credential-less requests such as CORS fetches use a separate connection
+            html.append("<link rel=\"preconnect\" href=\"").append(href).append("\" crossorigin>");
+        }
+        return html.append("</head><body></body></html>").toString();
+    }
+
+    /**
+     * Resolves the host names of {@code origins} on {@code executor}, recording the
+     * time as "preconnectDns", and marks them warm for the next {@link #FRESH_MS}.
+     */
+    void warm(List<String> origins, Executor executor) {
+        long now = SystemClock.uptimeMillis();
+        synchronized (warmedAt) {
+            Iterator<Long> eldest = warmedAt.values().iterator();
+            while (eldest.hasNext() && (now - eldest.next() > FRESH_MS || warmedAt.size() > MAX_ORIGINS)) {
+                eldest.remove();
+            }
+            for (String origin : origins) {
+                // Re-inserted so the map stays ordered by warm-up time
+                warmedAt.remove(origin);
+                warmedAt.put(origin, now);
+            }
+        }
+        for (final String origin : origins) {
+            executor.execute(() -> {
+                String host = hostOf(origin);
+                long start = SystemClock.uptimeMillis();
+                try {
+                    InetAddress.getAllByName(host);
+                    metrics.record(origin, "preconnectDns", SystemClock.uptimeMillis() - start);
+                } catch (Exception e) {
+                    if (Diagnostics.debug()) {
+                        Log.d(TAG, "Preconnect lookup failed for " + host + ": " + e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Records the connection setup (DNS, TCP and TLS) of a page's main document
+     * from a {@link PageMetrics#PAGE_TIMING_SCRIPT} result: as "preconnectedSetup"
+     * when the origin was warmed recently, else as "coldSetup". A warmed load is
+     * also recorded as "preconnectSavings" against the cold median.
+     */
+    void recordSetup(String origin, JSONObject timing) {
+        if (!timing.has("connect")) {
+            return;
+        }
+        double setup = timing.optDouble("dns", 0) + timing.optDouble("connect", 0);
+        Long warmed;
+        synchronized (warmedAt) {
+            warmed = warmedAt.get(origin);
+        }
+        if (warmed == null || SystemClock.uptimeMillis() - warmed > FRESH_MS) {
+            metrics.record(origin, "coldSetup", setup);
+            return;
+        }
+        metrics.record(origin, "preconnectedSetup", setup);
+        double cold = metrics.median(origin, "coldSetup");
+        if (!Double.isNaN(cold)) {
+            metrics.record(origin, "preconnectSavings", Math.max(0, cold - setup));
+        }
+    }
+
+    private static String hostOf(String origin) {
+        String host = origin.substring(origin.indexOf("://") + 3);
+        if (host.startsWith("[")) {
+            return host.substring(1, host.indexOf(']'));
+        }
+        int port = host.lastIndexOf(':');
+        return port < 0 ? host : host.substring(0, port);
+    }
+}
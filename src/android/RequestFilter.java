@@ -0,0 +1,208 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.res.AssetManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Host blocklist/allowlist compiled into a trie of reversed host names. A rule
+ * matches its host and every subdomain; when several rules match, the most
+ * specific one decides, so an allowed subdomain can be carved out of a blocked
+ * domain. A lookup walks the host once from its last character and allocates
+ * nothing. Instances are immutable once built and safe to share between threads.
+ */
+class RequestFilter {
+
+    private static final byte NONE = 0;
+    private static final byte BLOCK = 1;
+    private static final byte ALLOW = 2;
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        /** Sorted child characters and the matching child nodes. */
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        byte rule = NONE;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newKeys[insert] = c;
+            newChildren[insert] = new Node();
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insert];
+        }
+    }
+
+    /** Blocked counts per host and time spent matching, shared by every filter of the plugin. */
+    static class Stats {
+        private static final int MAX_HOSTS = 256;
+
+        private final AtomicLong lookups = new AtomicLong();
+        private final AtomicLong blocked = new AtomicLong();
+        private final AtomicLong matchNanos = new AtomicLong();
+        private final Map<String, Long> blockedByHost = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > MAX_HOSTS;
+            }
+        };
+
+        void recordLookup(long nanos) {
+            lookups.incrementAndGet();
+            matchNanos.addAndGet(nanos);
+        }
+
+        void recordBlocked(String host) {
+            blocked.incrementAndGet();
+            synchronized (blockedByHost) {
+                Long count = blockedByHost.get(host);
+                blockedByHost.put(host, count != null ? count + 1 : 1L);
+            }
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("lookups", lookups.get());
+            json.put("blocked", blocked.get());
+            json.put("matchTimeMs", matchNanos.get() / 1e6);
+            JSONObject hosts = new JSONObject();
+            synchronized (blockedByHost) {
+                for (Map.Entry<String, Long> host : blockedByHost.entrySet()) {
+                    hosts.put(host.getKey(), host.getValue());
+                }
+            }
+            json.put("hosts", hosts);
+            return json;
+        }
+    }
+
+    private final Node root = new Node();
+    private int rules = 0;
+
+    private RequestFilter() {
+    }
+
+    /**
+     * Builds the filter from a "requestFilter" create() option:
+     * {block: [hosts], allow: [hosts], blockFile: asset path}. The file holds one
+     * host per line; hosts-file ("0.0.0.0 host") and "||host^" lines are accepted
+     * and lines starting with # or ! are comments. Returns null without options.
+     */
+    static RequestFilter fromOptions(JSONObject options, AssetManager assets) throws JSONException, IOException {
+        JSONObject config = options.optJSONObject("requestFilter");
+        if (config == null) {
+            return null;
+        }
+        RequestFilter filter = new RequestFilter();
+        String blockFile = config.optString("blockFile", null);
+        if (blockFile != null) {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(assets.open(blockFile), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    filter.add(line, BLOCK);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        JSONArray block = config.optJSONArray("block");
+        for (int i = 0; block != null && i < block.length(); i++) {
+            filter.add(block.getString(i), BLOCK);
+        }
+        JSONArray allow = config.optJSONArray("allow");
+        for (int i = 0; allow != null && i < allow.length(); i++) {
+            filter.add(allow.getString(i), ALLOW);
+        }
+        return filter;
+    }
+
+    int size() {
+        return rules;
+    }
+
+    /** Whether requests to {@code host} should be answered with an empty response. */
+    boolean isBlocked(String host) {
+        Node node = root;
+        byte decision = NONE;
+        for (int i = host.length() - 1; i >= 0; i--) {
+            node = node.child(lowerCase(host.charAt(i)));
+            if (node == null) {
+                break;
+            }
+            if (node.rule != NONE && (i == 0 || host.charAt(i - 1) == '.')) {
+                decision = node.rule;
+            }
+        }
+        return decision == BLOCK;
+    }
+
+    private void add(String line, byte rule) {
+        String host = line.trim();
+        int comment = host.indexOf('#');
+        if (comment >= 0) {
+            host = host.substring(0, comment).trim();
+        }
+        if (host.isEmpty() || host.startsWith("!")) {
+            return;
+        }
+        int space = Math.max(host.lastIndexOf(' '), host.lastIndexOf('\t'));
+        if (space >= 0) {
+            host = host.substring(space + 1);
+        }
+        if (host.startsWith("||")) {
+            host = host.substring(2);
+        }
+        if (host.endsWith("^")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        if (host.startsWith("*.")) {
+            host = host.substring(2);
+        }
+        if (host.isEmpty() || host.equals("localhost")) {
+            return;
+        }
+
+        Node node = root;
+        for (int i = host.length() - 1; i >= 0; i--) {
+            node = node.addChild(lowerCase(host.charAt(i)));
+        }
+        if (node.rule == NONE) {
+            rules++;
+        }
+        node.rule = rule;
+    }
+
+    private static char lowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
@@ -0,0 +1,649 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.util.Log;
+import android.webkit.CookieManager;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Size-bounded, LRU-evicted on-disk response cache used from
+ * shouldInterceptRequest. Bodies and metadata are stored as one pair of files
+ * per URL; an in-memory index in access order drives eviction. Freshness
+ * follows Cache-Control/Expires and stale entries are revalidated with
+ * ETag/Last-Modified.
+ */
+class ResponseCache {
+
+    private static final String TAG = "EmbeddedWebView";
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** Headers that are not replayed from the cache. */
+    private static final String[] SKIPPED_HEADERS = {
+            "set-cookie", "connection", "keep-alive", "transfer-encoding", "content-length", "content-encoding"
+    };
+
+    /** Which requests an instance routes through the cache, from the create() "responseCache" option. */
+    static class Policy {
+        private final List<String> origins = new ArrayList<>();
+        private final List<Pattern> paths = new ArrayList<>();
+        private final long defaultMaxAgeMs;
+
+        private Policy(long defaultMaxAgeMs) {
+            this.defaultMaxAgeMs = defaultMaxAgeMs;
+        }
+
+        /**
+         * Parses {@code {rules: [{origin, path}], defaultMaxAge}}. {@code origin} is
+         * "*", "https://example.com" or "https://*.example.com", and a rule without
+         * one matches any origin; {@code path} is a regular expression matched
+         * against the URL path. Returns null when the option is absent.
+         */
+        static Policy fromOptions(JSONObject options) throws JSONException {
+            JSONObject config = options.optJSONObject("responseCache");
+            if (config == null) {
+                return null;
+            }
+            Policy policy = new Policy(config.optLong("defaultMaxAge", 0) * 1000L);
+            JSONArray rules = config.optJSONArray("rules");
+            if (rules != null) {
+                for (int i = 0; i < rules.length(); i++) {
+                    JSONObject rule = rules.getJSONObject(i);
+                    policy.origins.add(rule.isNull("origin") ? null : rule.getString("origin").toLowerCase(Locale.US));
+                    policy.paths.add(rule.isNull("path") ? null : Pattern.compile(rule.getString("path")));
+                }
+            }
+            return policy;
+        }
+
+        boolean matches(String origin, String path) {
+            for (int i = 0; i < origins.size(); i++) {
+                String ruleOrigin = origins.get(i);
+                Pattern rulePath = paths.get(i);
+                if ((ruleOrigin == null || originMatches(ruleOrigin, origin))
+                        && (rulePath == null || rulePath.matcher(path).find())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static class Entry {
+        final String key;
+        String url;
+        String mimeType;
+        String encoding;
+        String etag;
+        String lastModified;
+        long expiresAt;
+        long size;
+        Map<String, String> headers;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("url", url);
+            json.put("mimeType", mimeType);
+            json.put("encoding", encoding);
+            json.put("etag", etag);
+            json.put("lastModified", lastModified);
+            json.put("expiresAt", expiresAt);
+            json.put("size", size);
+            json.put("headers", new JSONObject(headers));
+            return json;
+        }
+
+        static Entry fromJson(String key, JSONObject json) throws JSONException {
+            Entry entry = new Entry(key);
+            entry.url = json.getString("url");
+            entry.mimeType = json.optString("mimeType", "application/octet-stream");
+            entry.encoding = json.isNull("encoding") ? null : json.getString("encoding");
+            entry.etag = json.isNull("etag") ? null : json.getString("etag");
+            entry.lastModified = json.isNull("lastModified") ? null : json.getString("lastModified");
+            entry.expiresAt = json.optLong("expiresAt", 0);
+            entry.size = json.optLong("size", 0);
+            entry.headers = new HashMap<>();
+            JSONObject headers = json.optJSONObject("headers");
+            if (headers != null) {
+                Iterator<String> names = headers.keys();
+                while (names.hasNext()) {
+                    String name = names.next();
+                    entry.headers.put(name, headers.getString(name));
+                }
+            }
+            return entry;
+        }
+    }
+
+    /** A network response as read by {@link #fetch}; body is null for 304. */
+    static class Fetched {
+        int status;
+        String reason;
+        byte[] body;
+        Map<String, String> headers = new HashMap<>();
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes = 0;
+    private boolean loaded = false;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long revalidations = 0;
+    private long bytesSaved = 0;
+
+    ResponseCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Serves the request from the cache when the policy covers it, fetching and
+     * storing it on a miss. Returns null to let the WebView load it normally.
+     * Called on the WebView's network thread.
+     */
+    WebResourceResponse intercept(Policy policy, WebResourceRequest request) {
+        if (policy == null || !"GET".equalsIgnoreCase(request.getMethod())
+                || hasCredentials(request.getRequestHeaders())) {
+            return null;
+        }
+        String url = request.getUrl().toString();
+        String scheme = request.getUrl().getScheme();
+        if (!"http".equals(scheme) && !"https".equals(scheme)) {
+            return null;
+        }
+        if (!policy.matches(originOf(url), request.getUrl().getPath() == null ? "" : request.getUrl().getPath())) {
+            return null;
+        }
+
+        try {
+            ensureLoaded();
+            Entry entry;
+            synchronized (this) {
+                entry = index.get(keyFor(url));
+            }
+
+            long now = System.currentTimeMillis();
+            if (entry != null && now < entry.expiresAt) {
+                byte[] body = readBody(entry);
+                if (body != null) {
+                    recordHit(entry.size, false);
+                    return toResponse(entry, 200, "OK", body);
+                }
+            }
+
+            Fetched fetched = fetch(url, request.getRequestHeaders(), entry);
+            if (fetched.status == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                byte[] body = readBody(entry);
+                if (body != null) {
+                    // A 304 may update freshness; validators it omits stay those of the entry
+                    Map<String, String> headers = new HashMap<>(entry.headers);
+                    headers.putAll(fetched.headers);
+                    entry.expiresAt = expiresAt(headers, policy.defaultMaxAgeMs);
+                    writeMeta(entry);
+                    recordHit(entry.size, true);
+                    return toResponse(entry, 200, "OK", body);
+                }
+                fetched = fetch(url, request.getRequestHeaders(), null);
+            }
+
+            synchronized (this) {
+                misses++;
+            }
+            Entry stored = null;
+            if (fetched.status == HttpURLConnection.HTTP_OK && isStorable(fetched.headers)) {
+                stored = store(url, fetched, policy.defaultMaxAgeMs);
+            }
+            if (stored != null) {
+                return toResponse(stored, fetched.status, fetched.reason, fetched.body);
+            }
+            Entry uncached = entryFromFetched(keyFor(url), url, fetched, 0);
+            return toResponse(uncached, fetched.status, fetched.reason, fetched.body);
+        } catch (Exception e) {
+            Log.w(TAG, "Response cache bypassed for " + url + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Serves a response fetched outside the cache as it is, without storing it. */
+    static WebResourceResponse passThrough(String url, Fetched fetched) {
+        return toResponse(entryFromFetched(keyFor(url), url, fetched, 0), fetched.status, fetched.reason, fetched.body);
+    }
+
+    /** Fetches and stores a URL regardless of policy. Blocking; run off the UI thread. */
+    boolean precache(String url) {
+        try {
+            ensureLoaded();
+            Fetched fetched = fetch(url, new HashMap<String, String>(), null);
+            if (fetched.status != HttpURLConnection.HTTP_OK || !isStorable(fetched.headers)) {
+                return false;
+            }
+            return store(url, fetched, 0) != null;
+        } catch (Exception e) {
+            Log.w(TAG, "Error precaching " + url + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Deletes every cached response. Blocking; run off the UI thread. */
+    synchronized void clear() {
+        for (Entry entry : index.values()) {
+            bodyFile(entry.key).delete();
+            metaFile(entry.key).delete();
+        }
+        index.clear();
+        totalBytes = 0;
+    }
+
+    synchronized JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        long lookups = hits + misses;
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("revalidations", revalidations);
+        stats.put("hitRatio", lookups == 0 ? 0 : (double) hits / lookups);
+        stats.put("bytesSaved", bytesSaved);
+        stats.put("entries", index.size());
+        stats.put("sizeBytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+
+    private synchronized void recordHit(long size, boolean revalidated) {
+        hits++;
+        bytesSaved += size;
+        if (revalidated) {
+            revalidations++;
+        }
+    }
+
+    /** Builds the in-memory index from disk once. Blocking; run off the UI thread. */
+    synchronized void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Unable to create response cache directory");
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(".meta")) {
+                continue;
+            }
+            String key = name.substring(0, name.length() - ".meta".length());
+            try {
+                Entry entry = Entry.fromJson(key, new JSONObject(new String(readFile(file), StandardCharsets.UTF_8)));
+                if (bodyFile(key).length() == entry.size) {
+                    index.put(key, entry);
+                    totalBytes += entry.size;
+                    continue;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Dropping unreadable cache entry " + key);
+            }
+            file.delete();
+            bodyFile(key).delete();
+        }
+        trimToSize();
+    }
+
+    private Entry store(String url, Fetched fetched, long defaultMaxAgeMs) throws IOException, JSONException {
+        Entry entry = entryFromFetched(keyFor(url), url, fetched, defaultMaxAgeMs);
+        // Never fresh and impossible to revalidate: every use would fetch it again
+        boolean useless = entry.expiresAt == 0 && entry.etag == null && entry.lastModified == null;
+        if (useless || entry.size > maxBytes) {
+            return null;
+        }
+
+        File tmp = new File(directory, entry.key + ".tmp");
+        writeFile(tmp, fetched.body);
+        synchronized (this) {
+            Entry previous = index.remove(entry.key);
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            if (!tmp.renameTo(bodyFile(entry.key))) {
+                tmp.delete();
+                metaFile(entry.key).delete();
+                return null;
+            }
+            writeMeta(entry);
+            index.put(entry.key, entry);
+            totalBytes += entry.size;
+            trimToSize();
+        }
+        return entry;
+    }
+
+    private static Entry entryFromFetched(String key, String url, Fetched fetched, long defaultMaxAgeMs) {
+        Entry entry = new Entry(key);
+        entry.url = url;
+        String contentType = fetched.headers.get("content-type");
+        entry.mimeType = "application/octet-stream";
+        entry.encoding = null;
+        if (contentType != null) {
+            String[] parts = contentType.split(";");
+            entry.mimeType = parts[0].trim();
+            for (int i = 1; i < parts.length; i++) {
+                String part = parts[i].trim();
+                if (part.toLowerCase(Locale.US).startsWith("charset=")) {
+                    entry.encoding = part.substring("charset=".length()).replace("\"", "");
+                }
+            }
+        }
+        entry.etag = fetched.headers.get("etag");
+        entry.lastModified = fetched.headers.get("last-modified");
+        entry.expiresAt = expiresAt(fetched.headers, defaultMaxAgeMs);
+        entry.size = fetched.body.length;
+        entry.headers = new HashMap<>(fetched.headers);
+        return entry;
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> eldest = index.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.size;
+            bodyFile(entry.key).delete();
+            metaFile(entry.key).delete();
+        }
+    }
+
+    /**
+     * Performs a GET with the WebView's cookies, storing any cookies the response
+     * sets. {@code validator} adds conditional headers; may be null. Blocking.
+     */
+    static Fetched fetch(String url, Map<String, String> requestHeaders, Entry validator) throws IOException {
+        return validator != null
+                ? fetch(url, requestHeaders, validator.etag, validator.lastModified)
+                : fetch(url, requestHeaders, null, null);
+    }
+
+    /** As {@link #fetch(String, Map, Entry)}, conditional on whichever validators are not null. */
+    static Fetched fetch(String url, Map<String, String> requestHeaders, String etag, String lastModified)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setInstanceFollowRedirects(true);
+            if (requestHeaders != null) {
+                for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+                    // HttpURLConnection decompresses transparently only if it negotiates the encoding itself
+                    if (!"accept-encoding".equalsIgnoreCase(header.getKey())) {
+                        connection.setRequestProperty(header.getKey(), header.getValue());
+                    }
+                }
+            }
+            String cookies = CookieManager.getInstance().getCookie(url);
+            if (cookies != null) {
+                connection.setRequestProperty("Cookie", cookies);
+            }
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+
+            Fetched fetched = new Fetched();
+            fetched.status = connection.getResponseCode();
+            fetched.reason = connection.getResponseMessage() != null ? connection.getResponseMessage() : "OK";
+
+            for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+                if (header.getKey() == null || header.getValue().isEmpty()) {
+                    continue;
+                }
+                String name = header.getKey().toLowerCase(Locale.US);
+                if ("set-cookie".equals(name)) {
+                    for (String cookie : header.getValue()) {
+                        CookieManager.getInstance().setCookie(url, cookie);
+                    }
+                }
+                if (!isSkippedHeader(name)) {
+                    fetched.headers.put(name, header.getValue().get(0));
+                }
+            }
+
+            if (fetched.status != HttpURLConnection.HTTP_NOT_MODIFIED) {
+                InputStream in = fetched.status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+                fetched.body = in != null ? readStream(in) : new byte[0];
+            }
+            return fetched;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static boolean isSkippedHeader(String name) {
+        for (String skipped : SKIPPED_HEADERS) {
+            if (skipped.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Whether a request carries an Authorization header, whose responses no shared cache may keep. */
+    static boolean hasCredentials(Map<String, String> requestHeaders) {
+        for (String name : requestHeaders.keySet()) {
+            if ("authorization".equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Cache-Control directives, lower-cased, mapped to their unquoted values ("" when valueless). */
+    static Map<String, String> directivesOf(String cacheControl) {
+        Map<String, String> directives = new HashMap<>();
+        if (cacheControl == null) {
+            return directives;
+        }
+        for (String directive : cacheControl.toLowerCase(Locale.US).split(",")) {
+            int equals = directive.indexOf('=');
+            if (equals < 0) {
+                directives.put(directive.trim(), "");
+            } else {
+                directives.put(directive.substring(0, equals).trim(),
+                        directive.substring(equals + 1).trim().replace("\"", ""));
+            }
+        }
+        return directives;
+    }
+
+    /**
+     * Whether a response with these (lower-cased) headers may be kept in a cache
+     * shared by every instance: not no-store or private, and not varying on any
+     * request header but Accept-Encoding, which the native fetch negotiates itself
+     * before bodies are stored decoded.
+     */
+    static boolean isStorable(Map<String, String> headers) {
+        Map<String, String> directives = directivesOf(headers.get("cache-control"));
+        if (directives.containsKey("no-store") || directives.containsKey("private")) {
+            return false;
+        }
+        String vary = headers.get("vary");
+        if (vary != null) {
+            for (String name : vary.split(",")) {
+                name = name.trim();
+                if (!name.isEmpty() && !name.equalsIgnoreCase("accept-encoding")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Expiry time from the (lower-cased) response headers; 0 means revalidate.
+     * no-cache, no-store and private win over max-age wherever they appear, and
+     * max-age over Expires. {@code defaultMaxAgeMs} only applies to responses
+     * without either that carry a validator and no must-revalidate.
+     */
+    static long expiresAt(Map<String, String> headers, long defaultMaxAgeMs) {
+        long now = System.currentTimeMillis();
+        Map<String, String> directives = directivesOf(headers.get("cache-control"));
+        if (directives.containsKey("no-cache") || directives.containsKey("no-store")
+                || directives.containsKey("private")) {
+            return 0;
+        }
+        if (directives.containsKey("max-age")) {
+            try {
+                return now + Math.max(0, Long.parseLong(directives.get("max-age"))) * 1000L;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        String expires = headers.get("expires");
+        if (expires != null) {
+            try {
+                java.text.SimpleDateFormat format = new java.text.SimpleDateFormat(
+                        "EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+                return format.parse(expires).getTime();
+            } catch (java.text.ParseException e) {
+                return 0;
+            }
+        }
+        boolean validated = headers.containsKey("etag") || headers.containsKey("last-modified");
+        return defaultMaxAgeMs > 0 && validated && !directives.containsKey("must-revalidate")
+                ? now + defaultMaxAgeMs : 0;
+    }
+
+    private static WebResourceResponse toResponse(Entry entry, int status, String reason, byte[] body) {
+        Map<String, String> headers = new HashMap<>(entry.headers);
+        headers.remove("content-type");
+        return new WebResourceResponse(entry.mimeType, entry.encoding, status,
+                reason == null || reason.isEmpty() ? "OK" : reason, headers, new ByteArrayInputStream(body));
+    }
+
+    private byte[] readBody(Entry entry) {
+        try {
+            return readFile(bodyFile(entry.key));
+        } catch (IOException e) {
+            synchronized (this) {
+                if (index.remove(entry.key) != null) {
+                    totalBytes -= entry.size;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void writeMeta(Entry entry) throws IOException, JSONException {
+        writeFile(metaFile(entry.key), entry.toJson().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private File bodyFile(String key) {
+        return new File(directory, key + ".body");
+    }
+
+    private File metaFile(String key) {
+        return new File(directory, key + ".meta");
+    }
+
+    static String originOf(String url) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0) {
+            return "";
+        }
+        int pathStart = url.indexOf('/', schemeEnd + 3);
+        return (pathStart < 0 ? url : url.substring(0, pathStart)).toLowerCase(Locale.US);
+    }
+
+    /** Whether {@code origin} matches an origin rule: "*", "https://example.com" or "https://*.example.com". */
+    static boolean originMatches(String rule, String origin) {
+        if (rule.equals("*") || rule.equals(origin)) {
+            return true;
+        }
+        int wildcard = rule.indexOf("://*.");
+        if (wildcard > 0) {
+            String scheme = rule.substring(0, wildcard + 3);
+            String suffix = rule.substring(wildcard + 4);
+            return origin.startsWith(scheme) && origin.endsWith(suffix);
+        }
+        return false;
+    }
+
+    static String keyFor(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+            char[] key = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                key[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+                key[i * 2 + 1] = HEX[hash[i] & 0xf];
+            }
+            return new String(key);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    private static byte[] readStream(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    static byte[] readFile(File file) throws IOException {
+        return readStream(new FileInputStream(file));
+    }
+
+    static void writeFile(File file, byte[] data) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+}
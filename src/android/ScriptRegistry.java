@@ -0,0 +1,89 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Scripts registered once and installed in every page as named functions, so
+ * that repeated invocations only send a handle and arguments across the bridge.
+ */
+class ScriptRegistry {
+
+    private static final String NAMESPACE = "window.__embeddedWebViewScripts";
+
+    private final Map<String, String> sources = new LinkedHashMap<>();
+    private final Map<String, String> handlesBySource = new HashMap<>();
+    private int nextHandle = 1;
+    private String installScript;
+
+    /**
+     * Registers a function body that receives its arguments as {@code args} and
+     * returns the handle. Registering the same source twice returns the same handle.
+     */
+    synchronized String register(String source) {
+        String handle = handlesBySource.get(source);
+        if (handle != null) {
+            return handle;
+        }
+        handle = "s" + nextHandle++;
+        sources.put(handle, source);
+        handlesBySource.put(source, handle);
+        installScript = null;
+        return handle;
+    }
+
+    synchronized boolean unregister(String handle) {
+        String source = sources.remove(handle);
+        if (source == null) {
+            return false;
+        }
+        handlesBySource.remove(source);
+        installScript = null;
+        return true;
+    }
+
+    /**
+     * Drops every script. Handles keep counting up, so a handle kept by the page
+     * that registered it never names a later script.
+     */
+    synchronized void clear() {
+        sources.clear();
+        handlesBySource.clear();
+        installScript = null;
+    }
+
+    synchronized boolean isEmpty() {
+        return sources.isEmpty();
+    }
+
+    /** Script defining every registered function; built once per registry change. */
+    synchronized String getInstallScript() {
+        if (installScript == null) {
+            StringBuilder js = new StringBuilder();
+            js.append(NAMESPACE).append("={};");
+            for (Map.Entry<String, String> script : sources.entrySet()) {
+                js.append(NAMESPACE).append('[').append(JSONObject.quote(script.getKey()))
+                        .append("]=function(args){").append(script.getValue()).append("\n};");
+            }
+            installScript = js.toString();
+        }
+        return installScript;
+    }
+
+    /**
+     * Script running {@code calls} ([{handle, args}]) in order and evaluating to an
+     * array of {value} or {error} objects, one per call.
+     */
+    static String invocationScript(JSONArray calls) {
+        return "(function(){var s=" + NAMESPACE + "||{};"
+                + "return " + calls.toString() + ".map(function(c){"
+                + "var f=s[c.handle];"
+                + "if(typeof f!=='function'){return {error:'Unknown script handle: '+c.handle};}"
+                + "try{return {value:f(c.args||[])};}catch(e){return {error:String(e)};}"
+                + "});})()";
+    }
+}
@@ -0,0 +1,216 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.CookieManager;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Session state pushed by syncSession() without reloading the page: cookies
+ * written in bulk with a single flush, Web Storage entries applied by one
+ * script, and headers added to sub-resource requests of matching origins.
+ */
+class SessionSync {
+
+    private static final String TAG = "EmbeddedWebView";
+
+    /**
+     * Headers added to sub-resource GET requests of matching origins. Such
+     * requests are fetched natively, since WebView offers no way to add headers
+     * to a request it performs itself. Immutable; read from network threads.
+     */
+    static class Headers {
+        /** Origin rules: "*", "https://example.com" or "https://*.example.com". */
+        private final List<String> origins = new ArrayList<>();
+        private final Map<String, String> values;
+
+        private Headers(Map<String, String> values) {
+            this.values = values;
+        }
+
+        /**
+         * Parses the "headers" and "headerOrigins" fields of a session. Without
+         * origins the headers only go to {@code defaultOrigin}, the origin of the
+         * current page. Returns null when there are no headers.
+         */
+        static Headers fromSession(JSONObject session, String defaultOrigin) throws JSONException {
+            JSONObject values = session.optJSONObject("headers");
+            if (values == null || values.length() == 0) {
+                return null;
+            }
+            Headers headers = new Headers(WebViewConfig.toMap(values));
+            JSONArray origins = session.optJSONArray("headerOrigins");
+            for (int i = 0; origins != null && i < origins.length(); i++) {
+                headers.origins.add(origins.getString(i).toLowerCase(Locale.US));
+            }
+            if (headers.origins.isEmpty() && defaultOrigin != null && !defaultOrigin.isEmpty()) {
+                headers.origins.add(defaultOrigin);
+            }
+            return headers.origins.isEmpty() ? null : headers;
+        }
+
+        /**
+         * {@code request} with the headers added, or null when it is not a GET of a
+         * matching origin. Request bodies cannot be replayed, so other methods are
+         * left to the WebView.
+         */
+        WebResourceRequest apply(WebResourceRequest request) {
+            String scheme = request.getUrl().getScheme();
+            if (!"GET".equalsIgnoreCase(request.getMethod())
+                    || (!"http".equals(scheme) && !"https".equals(scheme))) {
+                return null;
+            }
+            String origin = ResponseCache.originOf(request.getUrl().toString());
+            for (String rule : origins) {
+                if (ResponseCache.originMatches(rule, origin)) {
+                    return new Authorized(request, values);
+                }
+            }
+            return null;
+        }
+    }
+
+    /** A request with extra headers, which replace any of the same name. */
+    private static class Authorized implements WebResourceRequest {
+        private final WebResourceRequest request;
+        private final Map<String, String> headers;
+
+        Authorized(WebResourceRequest request, Map<String, String> extra) {
+            this.request = request;
+            Map<String, String> headers = new HashMap<>();
+            for (Map.Entry<String, String> header : request.getRequestHeaders().entrySet()) {
+                if (!containsIgnoreCase(extra, header.getKey())) {
+                    headers.put(header.getKey(), header.getValue());
+                }
+            }
+            headers.putAll(extra);
+            this.headers = Collections.unmodifiableMap(headers);
+        }
+
+        @Override
+        public Uri getUrl() {
+            return request.getUrl();
+        }
+
+        @Override
+        public boolean isForMainFrame() {
+            return request.isForMainFrame();
+        }
+
+        @Override
+        public boolean isRedirect() {
+            return request.isRedirect();
+        }
+
+        @Override
+        public boolean hasGesture() {
+            return request.hasGesture();
+        }
+
+        @Override
+        public String getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public Map<String, String> getRequestHeaders() {
+            return headers;
+        }
+
+        private static boolean containsIgnoreCase(Map<String, String> map, String name) {
+            for (String key : map.keySet()) {
+                if (key.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Fetches a request returned by {@link Headers#apply}, or returns null to
+     * let the WebView load it without the headers. Blocking.
+     */
+    static WebResourceResponse fetch(WebResourceRequest request) {
+        String url = request.getUrl().toString();
+        try {
+            return ResponseCache.passThrough(url, ResponseCache.fetch(url, request.getRequestHeaders(), null));
+        } catch (Exception e) {
+            Log.w(TAG, "Session headers not applied to " + url + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes {@code [{url, name, value, path, domain, maxAge, secure, httpOnly,
+     * sameSite}]} to the cookie store and flushes it once. Returns the number
+     * written. Blocking; run off the UI thread.
+     */
+    static int writeCookies(JSONArray cookies) throws JSONException {
+        if (cookies == null || cookies.length() == 0) {
+            return 0;
+        }
+        CookieManager cookieManager = CookieManager.getInstance();
+        for (int i = 0; i < cookies.length(); i++) {
+            JSONObject cookie = cookies.getJSONObject(i);
+            cookieManager.setCookie(cookie.getString("url"), toSetCookie(cookie));
+        }
+        cookieManager.flush();
+        return cookies.length();
+    }
+
+    static String toSetCookie(JSONObject cookie) throws JSONException {
+        StringBuilder value = new StringBuilder()
+                .append(cookie.getString("name")).append('=').append(cookie.optString("value", ""));
+        if (cookie.has("path")) {
+            value.append("; Path=").append(cookie.getString("path"));
+        }
+        if (cookie.has("domain")) {
+            value.append("; Domain=").append(cookie.getString("domain"));
+        }
+        if (cookie.has("maxAge")) {
+            value.append("; Max-Age=").append(cookie.getLong("maxAge"));
+        }
+        if (cookie.optBoolean("secure", false)) {
+            value.append("; Secure");
+        }
+        if (cookie.optBoolean("httpOnly", false)) {
+            value.append("; HttpOnly");
+        }
+        if (cookie.has("sameSite")) {
+            value.append("; SameSite=").append(cookie.getString("sameSite"));
+        }
+        return value.toString();
+    }
+
+    /**
+     * One script setting the given localStorage and sessionStorage entries of the
+     * current page, removing those whose value is null, and returning how many it
+     * applied. Null when there are none.
+     */
+    static String storageScript(JSONObject localStorage, JSONObject sessionStorage) {
+        boolean hasLocal = localStorage != null && localStorage.length() > 0;
+        boolean hasSession = sessionStorage != null && sessionStorage.length() > 0;
+        if (!hasLocal && !hasSession) {
+            return null;
+        }
+        return "(function(l,s){var n=0;"
+                + "function apply(store,entries){for(var k in entries){"
+                + "if(entries[k]===null){store.removeItem(k);}else{store.setItem(k,String(entries[k]));}n++;}}"
+                + "apply(localStorage,l);apply(sessionStorage,s);return n;})("
+                + (hasLocal ? localStorage.toString() : "{}") + ","
+                + (hasSession ? sessionStorage.toString() : "{}") + ")";
+    }
+}
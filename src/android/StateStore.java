@@ -0,0 +1,219 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.webkit.WebViewCompat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Persists one compact snapshot per instance id so a WebView can be rebuilt
+ * after a renderer crash or an app restart instead of cold-loading. Writes run
+ * on the executor and are coalesced: only the latest snapshot per id is written.
+ * Each snapshot records the app and WebView versions that wrote it, and is
+ * dropped on load after either changes: the saveState() Bundle is a parcel
+ * whose layout only the writing WebView is sure to read back.
+ */
+class StateStore {
+
+    private static final String TAG = "EmbeddedWebView";
+
+    /** The parts of a WebView needed to put it back where the user left it. */
+    static class Snapshot {
+        final String url;
+        /** WebView.saveState() output: back/forward list and per-entry state; may be null. */
+        final Bundle state;
+        final int scrollX;
+        final int scrollY;
+        /** Registered sessionStorage keys and their values. */
+        final JSONObject storage;
+
+        Snapshot(String url, Bundle state, int scrollX, int scrollY, JSONObject storage) {
+            this.url = url;
+            this.state = state;
+            this.scrollX = scrollX;
+            this.scrollY = scrollY;
+            this.storage = storage;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("url", url);
+            json.put("scrollX", scrollX);
+            json.put("scrollY", scrollY);
+            json.put("storage", storage);
+            if (state != null) {
+                Parcel parcel = Parcel.obtain();
+                try {
+                    parcel.writeBundle(state);
+                    json.put("state", Base64.encodeToString(parcel.marshall(), Base64.NO_WRAP));
+                } finally {
+                    parcel.recycle();
+                }
+            }
+            return json;
+        }
+
+        static Snapshot fromJson(JSONObject json) {
+            Bundle state = null;
+            String encoded = json.optString("state", null);
+            if (encoded != null) {
+                byte[] bytes = Base64.decode(encoded, Base64.NO_WRAP);
+                Parcel parcel = Parcel.obtain();
+                try {
+                    parcel.unmarshall(bytes, 0, bytes.length);
+                    parcel.setDataPosition(0);
+                    state = parcel.readBundle(StateStore.class.getClassLoader());
+                } finally {
+                    parcel.recycle();
+                }
+            }
+            JSONObject storage = json.optJSONObject("storage");
+            return new Snapshot(json.optString("url", null), state,
+                    json.optInt("scrollX", 0), json.optInt("scrollY", 0),
+                    storage != null ? storage : new JSONObject());
+        }
+    }
+
+    private final File directory;
+    private final Executor executor;
+    /** {@link #versionOf} of the running app; snapshots written under another are dropped. */
+    private final String version;
+    private final Map<String, Snapshot> pending = new HashMap<>();
+
+    StateStore(File directory, Executor executor, String version) {
+        this.directory = directory;
+        this.executor = executor;
+        this.version = version;
+    }
+
+    /** "appVersionCode/webViewPackage:versionCode", with "?" for a part that is unknown. */
+    static String versionOf(Context context) {
+        String app;
+        try {
+            app = String.valueOf(versionCodeOf(packageInfoOf(context)));
+        } catch (PackageManager.NameNotFoundException e) {
+            app = "?";
+        }
+        PackageInfo webView = WebViewCompat.getCurrentWebViewPackage(context);
+        return app + "/" + (webView != null ? webView.packageName + ":" + versionCodeOf(webView) : "?");
+    }
+
+    @SuppressWarnings("deprecation")
+    private static PackageInfo packageInfoOf(Context context) throws PackageManager.NameNotFoundException {
+        PackageManager packageManager = context.getPackageManager();
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                ? packageManager.getPackageInfo(context.getPackageName(), PackageManager.PackageInfoFlags.of(0))
+                : packageManager.getPackageInfo(context.getPackageName(), 0);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long versionCodeOf(PackageInfo info) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.P ? info.getLongVersionCode() : info.versionCode;
+    }
+
+    /** Queues {@code snapshot} for writing, replacing any not yet written for {@code id}. */
+    void save(final String id, Snapshot snapshot) {
+        synchronized (pending) {
+            boolean scheduled = pending.containsKey(id);
+            pending.put(id, snapshot);
+            if (scheduled) {
+                return;
+            }
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Snapshot latest;
+                synchronized (pending) {
+                    latest = pending.remove(id);
+                }
+                if (latest != null) {
+                    write(id, latest);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the snapshot for {@code id}; null if there is none, it is unreadable
+     * or it was written by another app or WebView version. Blocks on disk.
+     */
+    Snapshot load(String id) {
+        synchronized (pending) {
+            Snapshot queued = pending.get(id);
+            if (queued != null) {
+                return queued;
+            }
+        }
+        File file = fileFor(id);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            JSONObject json = new JSONObject(new String(ResponseCache.readFile(file), StandardCharsets.UTF_8));
+            if (!version.equals(json.optString("version"))) {
+                if (Diagnostics.debug()) {
+                    Log.d(TAG, "Dropping state snapshot for " + id + " written by version "
+                            + json.optString("version", "unknown"));
+                }
+                file.delete();
+                return null;
+            }
+            return Snapshot.fromJson(json);
+        } catch (IOException | JSONException | RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable state snapshot for " + id + ": " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    void delete(final String id) {
+        synchronized (pending) {
+            pending.remove(id);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                fileFor(id).delete();
+            }
+        });
+    }
+
+    private void write(String id, Snapshot snapshot) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(TAG, "Cannot create state directory: " + directory);
+            return;
+        }
+        File tmp = new File(directory, ResponseCache.keyFor(id) + ".tmp");
+        try {
+            JSONObject json = snapshot.toJson().put("version", version);
+            ResponseCache.writeFile(tmp, json.toString().getBytes(StandardCharsets.UTF_8));
+            if (!tmp.renameTo(fileFor(id))) {
+                tmp.delete();
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Error writing state snapshot for " + id + ": " + e.getMessage());
+            tmp.delete();
+        }
+    }
+
+    private File fileFor(String id) {
+        return new File(directory, ResponseCache.keyFor(id) + ".state");
+    }
+}
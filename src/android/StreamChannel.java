@@ -0,0 +1,445 @@
+package com.cb4rr.cordova.plugin;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.util.Base64;
+import android.util.Log;
+import android.webkit.WebMessage;
+import android.webkit.WebMessagePort;
+import android.webkit.WebView;
+
+import androidx.webkit.WebMessageCompat;
+import androidx.webkit.WebMessagePortCompat;
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Named message channel between the host and one page, built on a
+ * WebMessagePort pair. Messages are split into chunks and each side may only
+ * have {@link #WINDOW} unacknowledged chunks in flight, so a slow receiver
+ * throttles the sender instead of queueing megabytes. All state is confined to
+ * the channel handler thread; the UI thread only creates and transfers the port.
+ *
+ * <p>Control frames are strings: {@code a} acknowledges one chunk and {@code x}
+ * closes. Text chunks are {@code d|<message id>|<last>0|<payload>}. Where WebView
+ * supports ArrayBuffer messages, binary chunks are sent as ArrayBuffers of a
+ * {@link #BUFFER_HEADER} byte header (last flag, big-endian message id) and the
+ * raw bytes; otherwise they are {@code d|<message id>|<last>1|<base64>} strings,
+ * since framework WebMessage only carries strings. Messages from the host still
+ * reach it as base64, the only form the Cordova bridge carries binary in.
+ */
+class StreamChannel {
+
+    private static final String TAG = "EmbeddedWebView";
+    private static final int WINDOW = 8;
+    /** Chunk size in characters; a multiple of 4 so every binary chunk decodes on its own. */
+    private static final int CHUNK_CHARS = 64 * 1024;
+    /** Payload bytes per ArrayBuffer chunk. */
+    private static final int CHUNK_BYTES = 64 * 1024;
+    /** Bytes before the payload of an ArrayBuffer chunk: the last flag and the message id. */
+    static final int BUFFER_HEADER = 5;
+    private static final long MAX_MESSAGE_BYTES = 64L * 1024 * 1024;
+    private static final String PORT_MESSAGE = "embeddedWebViewChannel:";
+
+    /** Installs window.EmbeddedWebViewChannel, the page side of the protocol. */
+    private static final String PAGE_SCRIPT = "(function(){"
+            + "if(window.EmbeddedWebViewChannel){return;}"
+            + "var CHUNK=" + CHUNK_CHARS + ",WINDOW=" + WINDOW + ",PREFIX='" + PORT_MESSAGE + "',channels={},waiting={};"
+            + "function b64(bytes){var s='';for(var i=0;i<bytes.length;i+=8192){"
+            + "s+=String.fromCharCode.apply(null,bytes.subarray(i,i+8192));}return btoa(s);}"
+            + "function unb64(s){var bin=atob(s),bytes=new Uint8Array(bin.length);"
+            + "for(var i=0;i<bin.length;i++){bytes[i]=bin.charCodeAt(i);}return bytes;}"
+            + "function Channel(name,port,buffers){var self=this,handler=null,backlog=[];"
+            + "this.name=name;this.port=port;this.buffers=buffers;this.credits=WINDOW;this.queue=[];this.inFlight=[];"
+            + "this.parts={};this.nextId=1;this.onclose=null;"
+            + "this._deliver=function(v){if(handler){handler(v);}else{backlog.push(v);}};"
+            + "Object.defineProperty(this,'onmessage',{get:function(){return handler;},"
+            + "set:function(f){handler=f;while(handler&&backlog.length){handler(backlog.shift());}}});"
+            + "port.onmessage=function(e){self._receive(e.data);};}"
+            + "Channel.prototype.send=function(data){var self=this;return new Promise(function(resolve){"
+            + "var id=self.nextId++,binary=typeof data!=='string',frames=[],i;"
+            + "if(binary){var bytes=data instanceof ArrayBuffer?new Uint8Array(data)"
+            + ":new Uint8Array(data.buffer,data.byteOffset,data.byteLength),step=self.buffers?" + CHUNK_BYTES + ":CHUNK/4*3;"
+            + "for(i=0;i<bytes.length||i===0;i+=step){"
+            + "frames.push(self.buffers?bytes.subarray(i,i+step):b64(bytes.subarray(i,i+step)));}}"
+            + "else{for(i=0;i<data.length||i===0;i+=CHUNK){frames.push(data.substring(i,i+CHUNK));}}"
+            + "frames.forEach(function(p,k){var last=k===frames.length-1,f;"
+            + "if(typeof p==='string'){f='d|'+id+'|'+(last?1:0)+(binary?1:0)+'|'+p;}"
+            + "else{var b=new Uint8Array(" + BUFFER_HEADER + "+p.length);b[0]=last?1:0;"
+            + "new DataView(b.buffer).setUint32(1,id);b.set(p," + BUFFER_HEADER + ");f=b.buffer;}"
+            + "self.queue.push({data:f,done:last?resolve:null});});"
+            + "self._pump();});};"
+            + "Channel.prototype.close=function(){this.port.postMessage('x');this._closed();};"
+            + "Channel.prototype._closed=function(){this.port.close();delete channels[this.name];"
+            + "if(this.onclose){this.onclose();}};"
+            + "Channel.prototype._pump=function(){while(this.credits>0&&this.queue.length){"
+            + "var f=this.queue.shift();this.port.postMessage(f.data);this.credits--;this.inFlight.push(f);}};"
+            + "Channel.prototype._receive=function(data){"
+            + "if(data==='a'){this.credits++;var f=this.inFlight.shift();if(f&&f.done){f.done();}this._pump();return;}"
+            + "if(data==='x'){this._closed();return;}"
+            + "var id,last,binary,payload;"
+            + "if(typeof data!=='string'){var b=new Uint8Array(data);"
+            + "id=String(new DataView(data).getUint32(1));last=b[0]===1;binary=true;payload=b.slice(" + BUFFER_HEADER + ");}"
+            + "else{var a=data.indexOf('|',2);id=data.substring(2,a);last=data.charAt(a+1)==='1';"
+            + "binary=data.charAt(a+2)==='1';payload=data.substring(a+4);"
+            + "if(binary){payload=unb64(payload);}}"
+            + "var parts=this.parts[id]||(this.parts[id]=[]);parts.push(payload);"
+            + "this.port.postMessage('a');"
+            + "if(!last){return;}delete this.parts[id];"
+            + "if(!binary){this._deliver(parts.join(''));return;}"
+            + "var size=0,offset=0;parts.forEach(function(p){size+=p.length;});"
+            + "var out=new Uint8Array(size);parts.forEach(function(p){out.set(p,offset);offset+=p.length;});"
+            + "this._deliver(out.buffer);};"
+            + "window.EmbeddedWebViewChannel={get:function(name){return new Promise(function(resolve){"
+            + "if(channels[name]){resolve(channels[name]);}else{(waiting[name]=waiting[name]||[]).push(resolve);}});}};"
+            + "window.addEventListener('message',function(e){"
+            + "if(typeof e.data!=='string'||e.data.indexOf(PREFIX)!==0||!e.ports||!e.ports[0]){return;}"
+            + "var name=e.data.substring(PREFIX.length+1),ch=new Channel(name,e.ports[0],e.data.charAt(PREFIX.length)==='b');"
+            + "channels[name]=ch;"
+            + "(waiting[name]||[]).forEach(function(r){r(ch);});delete waiting[name];});"
+            + "})();";
+
+    /** One end of the port pair: the framework port, or the androidx one that also carries ArrayBuffers. */
+    private interface Port {
+        void post(String data);
+
+        void post(byte[] buffer);
+
+        void close();
+    }
+
+    private static class Frame {
+        /** Exactly one of text and buffer is set. */
+        final String text;
+        final byte[] buffer;
+        final CallbackContext onAcknowledged;
+
+        Frame(String text, byte[] buffer, CallbackContext onAcknowledged) {
+            this.text = text;
+            this.buffer = buffer;
+            this.onAcknowledged = onAcknowledged;
+        }
+    }
+
+    /** A message being reassembled from its chunks. */
+    private static class Incoming {
+        final boolean binary;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final StringBuilder text = new StringBuilder();
+        long size = 0;
+
+        Incoming(boolean binary) {
+            this.binary = binary;
+        }
+    }
+
+    final String name;
+    private final WebView webView;
+    /** Origin of the document the port is handed to; a later document of another origin cannot take it. */
+    private final Uri targetOrigin;
+    private final CallbackContext receiver;
+    private final Handler handler;
+    /** Whether binary chunks travel as ArrayBuffers rather than base64 strings. */
+    private final boolean buffers;
+    private Port port;
+
+    private final ArrayDeque<Frame> outgoing = new ArrayDeque<>();
+    private final ArrayDeque<Frame> inFlight = new ArrayDeque<>();
+    private final Map<String, Incoming> incoming = new HashMap<>();
+    private int credits = WINDOW;
+    private int nextMessageId = 1;
+    private boolean closed = false;
+
+    /**
+     * Messages from the page are delivered to {@code receiver} as keep-callback
+     * results. {@code targetOrigin} comes from {@link #targetOriginOf}. Must be
+     * created on the UI thread.
+     */
+    StreamChannel(String name, WebView webView, String targetOrigin, CallbackContext receiver, Handler handler) {
+        this.name = name;
+        this.webView = webView;
+        this.targetOrigin = Uri.parse(targetOrigin);
+        this.receiver = receiver;
+        this.handler = handler;
+        this.buffers = WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_ARRAY_BUFFER)
+                && WebViewFeature.isFeatureSupported(WebViewFeature.CREATE_WEB_MESSAGE_CHANNEL)
+                && WebViewFeature.isFeatureSupported(WebViewFeature.POST_WEB_MESSAGE)
+                && WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_PORT_POST_MESSAGE)
+                && WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_PORT_SET_MESSAGE_CALLBACK);
+    }
+
+    /** The http(s) origin of the page at {@code url}, or null when it is opaque. */
+    static String targetOriginOf(String url) {
+        if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            return null;
+        }
+        return ResponseCache.originOf(url);
+    }
+
+    /** An ArrayBuffer chunk: the {@link #BUFFER_HEADER} and {@code length} bytes of {@code bytes}. */
+    static byte[] bufferFrame(int id, boolean last, byte[] bytes, int offset, int length) {
+        byte[] frame = new byte[BUFFER_HEADER + length];
+        frame[0] = (byte) (last ? 1 : 0);
+        frame[1] = (byte) (id >>> 24);
+        frame[2] = (byte) (id >>> 16);
+        frame[3] = (byte) (id >>> 8);
+        frame[4] = (byte) id;
+        System.arraycopy(bytes, offset, frame, BUFFER_HEADER, length);
+        return frame;
+    }
+
+    /** Creates the port pair and hands one end to the page. Must run on the UI thread. */
+    void open() {
+        final Runnable handOver;
+        if (buffers) {
+            WebMessagePortCompat[] ports = WebViewCompat.createWebMessageChannel(webView);
+            final WebMessagePortCompat remote = ports[1];
+            final WebMessagePortCompat local = ports[0];
+            local.setWebMessageCallback(handler, new WebMessagePortCompat.WebMessageCallbackCompat() {
+                @Override
+                public void onMessage(WebMessagePortCompat p, WebMessageCompat message) {
+                    if (message.getType() == WebMessageCompat.TYPE_ARRAY_BUFFER) {
+                        receive(message.getArrayBuffer());
+                    } else {
+                        receive(message.getData());
+                    }
+                }
+            });
+            attach(new Port() {
+                @Override
+                public void post(String data) {
+                    local.postMessage(new WebMessageCompat(data));
+                }
+
+                @Override
+                public void post(byte[] buffer) {
+                    local.postMessage(new WebMessageCompat(buffer));
+                }
+
+                @Override
+                public void close() {
+                    local.close();
+                }
+            });
+            handOver = () -> WebViewCompat.postWebMessage(webView,
+                    new WebMessageCompat(PORT_MESSAGE + "b" + name, new WebMessagePortCompat[] { remote }), targetOrigin);
+        } else {
+            WebMessagePort[] ports = webView.createWebMessageChannel();
+            final WebMessagePort remote = ports[1];
+            final WebMessagePort local = ports[0];
+            local.setWebMessageCallback(new WebMessagePort.WebMessageCallback() {
+                @Override
+                public void onMessage(WebMessagePort p, WebMessage message) {
+                    receive(message.getData());
+                }
+            }, handler);
+            attach(new Port() {
+                @Override
+                public void post(String data) {
+                    local.postMessage(new WebMessage(data));
+                }
+
+                @Override
+                public void post(byte[] buffer) {
+                    throw new UnsupportedOperationException("Framework WebMessage only carries strings");
+                }
+
+                @Override
+                public void close() {
+                    local.close();
+                }
+            });
+            handOver = () -> webView.postWebMessage(
+                    new WebMessage(PORT_MESSAGE + "s" + name, new WebMessagePort[] { remote }), targetOrigin);
+        }
+
+        PluginResult result = new PluginResult(PluginResult.Status.NO_RESULT);
+        result.setKeepCallback(true);
+        receiver.sendPluginResult(result);
+
+        webView.evaluateJavascript(PAGE_SCRIPT, value -> handOver.run());
+    }
+
+    private void attach(final Port local) {
+        handler.post(() -> {
+            port = local;
+            pump();
+        });
+    }
+
+    /**
+     * Queues one message for the page. {@code payload} is text, or base64 when
+     * {@code binary}; {@code callback} succeeds once the page acknowledged the last chunk.
+     */
+    void send(final String payload, final boolean binary, final CallbackContext callback) {
+        handler.post(() -> {
+            if (closed) {
+                callback.error("Channel closed");
+                return;
+            }
+            if (binary && buffers) {
+                byte[] bytes;
+                try {
+                    bytes = Base64.decode(payload, Base64.DEFAULT);
+                } catch (IllegalArgumentException e) {
+                    callback.error("Invalid binary payload");
+                    return;
+                }
+                int id = nextMessageId++;
+                int offset = 0;
+                do {
+                    int length = Math.min(bytes.length - offset, CHUNK_BYTES);
+                    boolean last = offset + length == bytes.length;
+                    outgoing.add(new Frame(null, bufferFrame(id, last, bytes, offset, length), last ? callback : null));
+                    offset += length;
+                } while (offset < bytes.length);
+                pump();
+                return;
+            }
+            int id = nextMessageId++;
+            int offset = 0;
+            do {
+                int end = Math.min(payload.length(), offset + CHUNK_CHARS);
+                boolean last = end == payload.length();
+                String frame = "d|" + id + "|" + (last ? '1' : '0') + (binary ? '1' : '0') + "|"
+                        + payload.substring(offset, end);
+                outgoing.add(new Frame(frame, null, last ? callback : null));
+                offset = end;
+            } while (offset < payload.length());
+            pump();
+        });
+    }
+
+    /** Closes the channel from the host side, failing pending sends. Safe from any thread. */
+    void close() {
+        handler.post(() -> {
+            if (!closed && port != null) {
+                port.post("x");
+            }
+            closed();
+        });
+    }
+
+    private void pump() {
+        while (port != null && !closed && credits > 0 && !outgoing.isEmpty()) {
+            Frame frame = outgoing.poll();
+            if (frame.buffer != null) {
+                port.post(frame.buffer);
+            } else {
+                port.post(frame.text);
+            }
+            credits--;
+            inFlight.add(frame);
+        }
+    }
+
+    private void receive(String data) {
+        if (closed || data == null) {
+            return;
+        }
+        if (data.equals("a")) {
+            credits++;
+            Frame frame = inFlight.poll();
+            if (frame != null && frame.onAcknowledged != null) {
+                frame.onAcknowledged.success();
+            }
+            pump();
+            return;
+        }
+        if (data.equals("x")) {
+            closed();
+            return;
+        }
+
+        int separator = data.indexOf('|', 2);
+        if (!data.startsWith("d|") || separator < 0 || data.length() < separator + 4) {
+            Log.w(TAG, "Ignoring malformed frame on channel " + name);
+            return;
+        }
+        String id = data.substring(2, separator);
+        boolean last = data.charAt(separator + 1) == '1';
+        String payload = data.substring(separator + 4);
+        if (data.charAt(separator + 2) == '1') {
+            receiveChunk(id, last, Base64.decode(payload, Base64.DEFAULT), 0, null);
+        } else {
+            receiveChunk(id, last, null, 0, payload);
+        }
+    }
+
+    private void receive(byte[] frame) {
+        if (closed || frame == null) {
+            return;
+        }
+        if (frame.length < BUFFER_HEADER) {
+            Log.w(TAG, "Ignoring malformed frame on channel " + name);
+            return;
+        }
+        long id = (frame[1] & 0xffL) << 24 | (frame[2] & 0xff) << 16 | (frame[3] & 0xff) << 8 | (frame[4] & 0xff);
+        receiveChunk(String.valueOf(id), frame[0] == 1, frame, BUFFER_HEADER, null);
+    }
+
+    /** Adds a chunk, the bytes of {@code bytes} from {@code offset} or else {@code text}, to its message. */
+    private void receiveChunk(String id, boolean last, byte[] bytes, int offset, String text) {
+        Incoming message = incoming.get(id);
+        if (message == null) {
+            message = new Incoming(bytes != null);
+            incoming.put(id, message);
+        }
+        if (message.size <= MAX_MESSAGE_BYTES) {
+            if (bytes != null) {
+                message.bytes.write(bytes, offset, bytes.length - offset);
+                message.size += bytes.length - offset;
+            } else {
+                message.text.append(text);
+                message.size += text.length() * 2L;
+            }
+        }
+        port.post("a");
+
+        if (last) {
+            incoming.remove(id);
+            PluginResult result;
+            if (message.size > MAX_MESSAGE_BYTES) {
+                result = new PluginResult(PluginResult.Status.ERROR, "Message exceeds " + MAX_MESSAGE_BYTES + " bytes");
+            } else if (message.binary) {
+                result = new PluginResult(PluginResult.Status.OK, message.bytes.toByteArray());
+            } else {
+                result = new PluginResult(PluginResult.Status.OK, message.text.toString());
+            }
+            result.setKeepCallback(true);
+            receiver.sendPluginResult(result);
+        }
+    }
+
+    private void closed() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (port != null) {
+            port.close();
+        }
+        for (Frame frame : inFlight) {
+            if (frame.onAcknowledged != null) {
+                frame.onAcknowledged.error("Channel closed");
+            }
+        }
+        for (Frame frame : outgoing) {
+            if (frame.onAcknowledged != null) {
+                frame.onAcknowledged.error("Channel closed");
+            }
+        }
+        inFlight.clear();
+        outgoing.clear();
+        incoming.clear();
+        receiver.sendPluginResult(new PluginResult(PluginResult.Status.ERROR, "Channel closed"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.webkit.WebView;
+
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Scripts and styles configured at create() time, each wrapped once into a
+ * self-guarding snippet. Where WebView supports document-start scripts they are
+ * registered natively and run before the page's own scripts on every
+ * navigation; otherwise they are evaluated as each page starts and again when it
+ * finishes, the guard making the second run a no-op.
+ */
+class UserScripts {
+
+    private static final String SMOOTH_SCROLL_CSS = "html, body { scroll-behavior: smooth !important; }";
+
+    /** Only the smooth-scroll style, for views without create() options. */
+    static final UserScripts DEFAULT = new UserScripts(Collections.singletonList(
+            new Entry(0, styleScript(SMOOTH_SCROLL_CSS), true, Collections.singleton("*"))));
+
+    static class Entry {
+        final String script;
+        final boolean documentStart;
+        /** Origin rules: "*", "https://example.com" or "https://*.example.com". */
+        final Set<String> origins;
+
+        Entry(int index, String body, boolean documentStart, Set<String> origins) {
+            this.documentStart = documentStart;
+            this.origins = origins;
+            String run = "function(){" + body + "\n}";
+            if (!documentStart) {
+                run = "function(){var f=" + run + ";"
+                        + "if(document.readyState==='loading'){document.addEventListener('DOMContentLoaded',f);}else{f();}}";
+            }
+            this.script = "(function(){var d=window.__embeddedWebViewUserScripts=window.__embeddedWebViewUserScripts||{};"
+                    + "if(d[" + index + "]){return;}d[" + index + "]=true;(" + run + ")();})();";
+        }
+
+        boolean matches(String origin) {
+            for (String rule : origins) {
+                if (ResponseCache.originMatches(rule, origin)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final List<Entry> entries;
+
+    private UserScripts(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Reads "userScripts" ([{js | css, injectAt, origins}]) and "smoothScroll"
+     * (default true) from create() options.
+     */
+    static UserScripts fromOptions(JSONObject options) throws JSONException {
+        JSONArray configured = options.optJSONArray("userScripts");
+        boolean smoothScroll = options.optBoolean("smoothScroll", true);
+        if (configured == null && smoothScroll) {
+            return DEFAULT;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        if (smoothScroll) {
+            entries.add(DEFAULT.entries.get(0));
+        }
+        for (int i = 0; configured != null && i < configured.length(); i++) {
+            JSONObject script = configured.getJSONObject(i);
+            boolean isStyle = script.has("css");
+            String body = isStyle ? styleScript(script.getString("css")) : script.getString("js");
+            String injectAt = script.optString("injectAt", isStyle ? "documentStart" : "documentEnd");
+
+            Set<String> origins = new HashSet<>();
+            JSONArray rules = script.optJSONArray("origins");
+            for (int j = 0; rules != null && j < rules.length(); j++) {
+                origins.add(rules.getString(j).toLowerCase(Locale.US));
+            }
+            if (origins.isEmpty()) {
+                origins.add("*");
+            }
+            entries.add(new Entry(entries.size(), body, injectAt.equals("documentStart"), origins));
+        }
+        return new UserScripts(entries);
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Registers every entry as a document-start script of the entry's WebView.
+     * Returns false when the WebView does not support it and {@link #inject} must be used.
+     */
+    boolean install(WebViewPool.Entry entry) {
+        entry.clearDocumentStartScripts();
+        if (entries.isEmpty() || !WebViewFeature.isFeatureSupported(WebViewFeature.DOCUMENT_START_SCRIPT)) {
+            return false;
+        }
+        for (Entry script : entries) {
+            entry.documentStartScripts.add(
+                    WebViewCompat.addDocumentStartJavaScript(entry.webView, script.script, script.origins));
+        }
+        return true;
+    }
+
+    /** Fallback: evaluates the entries matching {@code url} in the current document. */
+    void inject(WebView view, String url) {
+        String origin = ResponseCache.originOf(url);
+        for (Entry script : entries) {
+            if (script.matches(origin)) {
+                view.evaluateJavascript(script.script, null);
+            }
+        }
+    }
+
+    private static String styleScript(String css) {
+        return "var s=document.createElement('style');s.textContent=" + JSONObject.quote(css) + ";"
+                + "(function add(){var p=document.head||document.documentElement;"
+                + "if(p){p.appendChild(s);}else{document.addEventListener('readystatechange',add,{once:true});}})();";
+    }
+}
@@ -0,0 +1,122 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.graphics.Color;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * create()/prewarm() options decoded once, off the UI thread, into the values the
+ * UI thread applies. Immutable, so one parsed config is shared by every create
+ * with the same options.
+ */
+class WebViewConfig {
+
+    private static final String TAG = "EmbeddedWebView";
+    private static final int DEFAULT_PROGRESS_COLOR = 0xFF2196F3;
+
+    /** Settings of views created without options, such as preloads and the pool. */
+    static final WebViewConfig DEFAULT = new WebViewConfig();
+
+    final FrameController.Frame frame;
+    /** Headers of the initial load; empty when none were given. */
+    final Map<String, String> headers;
+    final boolean enableZoom;
+    /** null keeps the default User-Agent. */
+    final String userAgent;
+    final int progressColor;
+    /** Progress bar height in dp. */
+    final int progressHeight;
+    final boolean clearCache;
+    final ResponseCache.Policy cachePolicy;
+    final UserScripts userScripts;
+    final RequestFilter requestFilter;
+    final ImageTranscoder.Rules imageRules;
+    /** Origins warmed up while the instance is created; empty when none. */
+    final List<String> preconnect;
+    /** Whether a preview of the page is shown while it loads again; see {@link PagePreviews}. */
+    final boolean placeholder;
+    /** Whether snapshots are also written to disk for restore after an app restart. */
+    final boolean persistState;
+    /** sessionStorage keys kept in snapshots, as a JSON array literal; null when none. */
+    final String storageKeys;
+    final boolean restoreState;
+
+    private WebViewConfig() {
+        frame = new FrameController.Frame(0, 0, 0, 0, 0);
+        headers = Collections.emptyMap();
+        enableZoom = false;
+        userAgent = null;
+        progressColor = DEFAULT_PROGRESS_COLOR;
+        progressHeight = 5;
+        clearCache = false;
+        cachePolicy = null;
+        userScripts = UserScripts.DEFAULT;
+        requestFilter = null;
+        imageRules = null;
+        preconnect = Collections.emptyList();
+        placeholder = false;
+        persistState = false;
+        storageKeys = null;
+        restoreState = false;
+    }
+
+    private WebViewConfig(JSONObject options, RequestFilter requestFilter) throws JSONException {
+        this.frame = FrameController.Frame.fromOptions(options, null);
+        JSONObject headers = options.optJSONObject("headers");
+        this.headers = headers != null ? toMap(headers) : Collections.<String, String>emptyMap();
+        this.enableZoom = options.optBoolean("enableZoom", false);
+        this.userAgent = options.has("userAgent") ? options.optString("userAgent") : null;
+        this.progressColor = parseColor(options.optString("progressColor", null));
+        this.progressHeight = options.optInt("progressHeight", 5);
+        this.clearCache = options.optBoolean("clearCache", false);
+        this.cachePolicy = ResponseCache.Policy.fromOptions(options);
+        this.userScripts = UserScripts.fromOptions(options);
+        this.requestFilter = requestFilter;
+        this.imageRules = ImageTranscoder.Rules.fromOptions(options);
+        this.preconnect = Preconnector.originsOf(options.optJSONArray("preconnect"));
+        this.placeholder = options.optBoolean("placeholder", false);
+
+        Object persistState = options.opt("persistState");
+        this.persistState = Boolean.TRUE.equals(persistState) || persistState instanceof JSONObject;
+        JSONArray storageKeys = persistState instanceof JSONObject
+                ? ((JSONObject) persistState).optJSONArray("storageKeys") : null;
+        this.storageKeys = storageKeys != null && storageKeys.length() > 0 ? storageKeys.toString() : null;
+        this.restoreState = options.optBoolean("restoreState", false);
+    }
+
+    /** {@code requestFilter} is the compiled "requestFilter" option, or null. */
+    static WebViewConfig fromOptions(JSONObject options, RequestFilter requestFilter) throws JSONException {
+        return new WebViewConfig(options, requestFilter);
+    }
+
+    static Map<String, String> toMap(JSONObject json) throws JSONException {
+        Map<String, String> map = new HashMap<>();
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            map.put(key, json.getString(key));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static int parseColor(String color) {
+        if (color == null) {
+            return DEFAULT_PROGRESS_COLOR;
+        }
+        try {
+            return Color.parseColor(color);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid progress color, using default");
+            return DEFAULT_PROGRESS_COLOR;
+        }
+    }
+}
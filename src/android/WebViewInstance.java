@@ -0,0 +1,188 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONObject;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.WebView;
+import android.widget.FrameLayout;
+import android.widget.ProgressBar;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State of one embedded WebView, identified by the caller-supplied id.
+ */
+class WebViewInstance {
+
+    final String id;
+    WebViewPool.Entry entry;
+    WebView webView;
+    ProgressBar progressBar;
+    FrameLayout container;
+
+    /** View retired by the last preload swap, kept hidden as a one-step back target. */
+    WebViewPool.Entry previous;
+    /** Parsed create() options, reapplied when a hibernated instance is restored. */
+    WebViewConfig config = WebViewConfig.DEFAULT;
+    boolean canGoBack = false;
+    boolean canGoForward = false;
+    /** Last back/forward snapshot; other threads read the copy the plugin publishes by id. */
+    JSONObject navigationState;
+    long lastShownAt;
+    /** Uptime when the create action arrived and when its WebView was ready; 0 once recorded. */
+    long createReceivedAt;
+    long webViewReadyAt;
+    /** Requested offsets and the safe-area insets they are applied on top of. */
+    FrameController.Frame frame;
+    FrameController.SafeArea safeArea = FrameController.SafeArea.NONE;
+
+    /** Set while hidden or backgrounded: WebView paused and renderer priority waived. */
+    boolean throttled = false;
+    /** Set while the container is detached from the window after the idle freeze delay. */
+    boolean frozen = false;
+    Runnable freezeTask;
+    private ViewGroup frozenParent;
+
+    /** Layout kept after the view was destroyed under memory pressure; {@code entry} is null until restored. */
+    FrameLayout.LayoutParams savedLayoutParams;
+    boolean restoreVisible = false;
+
+    /** Last snapshot taken on navigation or pause, used to rebuild the view. */
+    StateStore.Snapshot snapshot;
+    /** Snapshot being restored; its scroll position and storage are applied as the page loads. */
+    StateStore.Snapshot pendingRestore;
+    long recoveredAt;
+    /** Open message channels by name; they belong to the current document of the current view. */
+    final Map<String, StreamChannel> channels = new ConcurrentHashMap<>();
+
+    WebViewInstance(String id, WebViewPool.Entry entry) {
+        this.id = id;
+        adopt(entry);
+        this.lastShownAt = SystemClock.uptimeMillis();
+    }
+
+    /** Makes {@code entry} the active view of this instance and returns the one it replaces. */
+    WebViewPool.Entry adopt(WebViewPool.Entry entry) {
+        WebViewPool.Entry replaced = this.entry;
+        closeChannels();
+        this.entry = entry;
+        this.webView = entry.webView;
+        this.progressBar = entry.progressBar;
+        this.container = entry.container;
+        this.throttled = false;
+        return replaced;
+    }
+
+    /** Drops the view references after the entry was destroyed by hibernation. */
+    void detachEntry() {
+        closeChannels();
+        this.entry = null;
+        this.webView = null;
+        this.progressBar = null;
+        this.container = null;
+        this.throttled = false;
+        this.frozen = false;
+        this.frozenParent = null;
+    }
+
+    void closeChannels() {
+        for (StreamChannel channel : channels.values()) {
+            channel.close();
+        }
+        channels.clear();
+    }
+
+    boolean isHibernated() {
+        return entry == null;
+    }
+
+    boolean canNavigateBack() {
+        return !isHibernated() && (webView.canGoBack() || previous != null);
+    }
+
+    boolean isVisible() {
+        return !isHibernated() && container.getVisibility() == View.VISIBLE;
+    }
+
+    FrameLayout.LayoutParams layoutParams() {
+        return isHibernated() ? savedLayoutParams : (FrameLayout.LayoutParams) container.getLayoutParams();
+    }
+
+    /** "active", "throttled", "frozen" or "hibernated". */
+    String lifecycleState() {
+        if (isHibernated()) {
+            return "hibernated";
+        }
+        return frozen ? "frozen" : throttled ? "throttled" : "active";
+    }
+
+    /** Pauses the WebView and lets the system deprioritize its renderer. */
+    void throttle() {
+        if (throttled) {
+            return;
+        }
+        webView.onPause();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            webView.setRendererPriorityPolicy(WebView.RENDERER_PRIORITY_WAIVED, true);
+        }
+        throttled = true;
+    }
+
+    void unthrottle() {
+        if (!throttled) {
+            return;
+        }
+        webView.onResume();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            webView.setRendererPriorityPolicy(WebView.RENDERER_PRIORITY_IMPORTANT, false);
+        }
+        throttled = false;
+    }
+
+    /**
+     * Detaches the container from the window so the view no longer takes part
+     * in layout, drawing or vsync, and dispatches the Page Lifecycle freeze event.
+     */
+    void freeze() {
+        if (frozen || container.getParent() == null) {
+            return;
+        }
+        webView.evaluateJavascript("document.dispatchEvent(new Event('freeze'));", null);
+        frozenParent = (ViewGroup) container.getParent();
+        frozenParent.removeView(container);
+        frozen = true;
+    }
+
+    void thaw() {
+        if (!frozen) {
+            return;
+        }
+        frozenParent.addView(container, container.getLayoutParams());
+        frozenParent = null;
+        frozen = false;
+        webView.evaluateJavascript("document.dispatchEvent(new Event('resume'));", null);
+    }
+
+    void setVisible(boolean visible) {
+        container.setVisibility(visible ? View.VISIBLE : View.GONE);
+        if (visible) {
+            container.bringToFront();
+            lastShownAt = SystemClock.uptimeMillis();
+        }
+    }
+
+    /**
+     * Rough native footprint: a fixed renderer cost plus the hardware layer
+     * backing the WebView (4 bytes per pixel).
+     */
+    long estimatedMemoryBytes(long rendererBytes) {
+        if (isHibernated()) {
+            return 0;
+        }
+        return rendererBytes + 4L * webView.getWidth() * webView.getHeight();
+    }
+}
@@ -0,0 +1,316 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.RenderProcessGoneDetail;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.ProgressBar;
+
+import androidx.webkit.ScriptHandler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps fully configured WebView/container pairs ready so that create() does not
+ * pay for constructing a WebView on the UI thread. All methods must be called on
+ * the UI thread.
+ */
+class WebViewPool {
+
+    private static final String BLANK_URL = "about:blank";
+
+    static class Entry {
+        final FrameLayout container;
+        final WebView webView;
+        final ProgressBar progressBar;
+        /** Native document-start scripts registered for the current owner. */
+        final List<ScriptHandler> documentStartScripts = new ArrayList<>();
+        /** Names of the JavaScript interfaces added for the current owner. */
+        final List<String> javascriptInterfaces = new ArrayList<>();
+        /**
+         * Set while the history of a previous owner may still be on the view. The
+         * reset's about:blank can be replaced before it finishes, so the next
+         * owner's client clears history until its first real page commits.
+         */
+        boolean clearHistory = false;
+        /** Page preview shown until the loading page first paints; see {@link PagePreviews}. */
+        ImageView placeholder;
+        /** URL whose preview is shown or being decoded for this entry. */
+        String placeholderUrl;
+
+        Entry(FrameLayout container, WebView webView, ProgressBar progressBar) {
+            this.container = container;
+            this.webView = webView;
+            this.progressBar = progressBar;
+        }
+
+        void clearDocumentStartScripts() {
+            for (ScriptHandler handler : documentStartScripts) {
+                handler.remove();
+            }
+            documentStartScripts.clear();
+        }
+
+        void addJavascriptInterface(Object bridge, String name) {
+            webView.addJavascriptInterface(bridge, name);
+            javascriptInterfaces.add(name);
+        }
+
+        void clearJavascriptInterfaces() {
+            for (String name : javascriptInterfaces) {
+                webView.removeJavascriptInterface(name);
+            }
+            javascriptInterfaces.clear();
+        }
+
+        /**
+         * Drops the previous owner's history once the page {@code url} committed.
+         * Called from the owner's client; a no-op once the first real page is in.
+         */
+        void clearStaleHistory(String url) {
+            if (clearHistory) {
+                webView.clearHistory();
+                clearHistory = BLANK_URL.equals(url);
+            }
+        }
+
+        void removePlaceholder() {
+            placeholderUrl = null;
+            if (placeholder != null) {
+                placeholder.animate().cancel();
+                container.removeView(placeholder);
+                placeholder = null;
+            }
+        }
+    }
+
+    private final Activity activity;
+    private final ArrayDeque<Entry> idle = new ArrayDeque<>();
+    private int capacity;
+    private int hits = 0;
+    private int misses = 0;
+
+    WebViewPool(Activity activity, int capacity) {
+        this.activity = activity;
+        this.capacity = Math.max(0, capacity);
+    }
+
+    /** Returns a pooled entry, or builds a new one when the pool is empty. */
+    Entry acquire() {
+        Entry entry = idle.pollFirst();
+        if (entry != null) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        return build();
+    }
+
+    /**
+     * Returns a pooled entry, or null when the pool is empty; for optional work
+     * that is not worth building a WebView for.
+     */
+    Entry acquireIdle() {
+        Entry entry = idle.pollFirst();
+        if (entry != null) {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Detaches the entry and resets it for reuse. Entries beyond the pool capacity
+     * are destroyed instead.
+     */
+    void release(Entry entry) {
+        detach(entry);
+        if (idle.size() >= capacity) {
+            entry.webView.destroy();
+            return;
+        }
+        reset(entry);
+        idle.addLast(entry);
+    }
+
+    /** Detaches and destroys the entry without returning it to the pool. */
+    void discard(Entry entry) {
+        detach(entry);
+        entry.webView.destroy();
+    }
+
+    /**
+     * Builds entries until {@code count} are idle, one per idle pass of the main
+     * looper so the warm-up itself does not drop frames. The capacity grows to
+     * {@code count} if needed.
+     */
+    void prewarm(final int count, final WebViewConfig config, final Runnable onComplete) {
+        capacity = Math.max(capacity, count);
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (idle.size() < count) {
+                    Entry entry = build();
+                    configure(entry, config);
+                    idle.addLast(entry);
+                }
+                if (idle.size() >= count) {
+                    if (onComplete != null) {
+                        onComplete.run();
+                    }
+                    return false;
+                }
+                return true;
+            }
+        });
+    }
+
+    /** Destroys every idle entry. */
+    void clear() {
+        Entry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            entry.webView.destroy();
+        }
+    }
+
+    JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("idle", idle.size());
+        stats.put("capacity", capacity);
+        return stats;
+    }
+
+    /** Applies the option-dependent settings of a parsed create()/prewarm() config. */
+    void configure(Entry entry, WebViewConfig config) {
+        WebSettings settings = entry.webView.getSettings();
+
+        settings.setBuiltInZoomControls(config.enableZoom);
+        settings.setDisplayZoomControls(false);
+
+        // null restores the default User-Agent on reused WebViews
+        settings.setUserAgentString(config.userAgent);
+
+        entry.progressBar.getProgressDrawable().setColorFilter(config.progressColor, PorterDuff.Mode.SRC_IN);
+
+        float density = activity.getResources().getDisplayMetrics().density;
+        entry.progressBar.getLayoutParams().height = (int) (config.progressHeight * density);
+    }
+
+    private Entry build() {
+        FrameLayout webViewContainer = new FrameLayout(activity);
+
+        WebView webView = new WebView(activity);
+
+        WebSettings settings = webView.getSettings();
+        settings.setJavaScriptEnabled(true);
+        settings.setDomStorageEnabled(true);
+        settings.setDatabaseEnabled(true);
+        settings.setAllowFileAccess(true);
+        settings.setAllowContentAccess(true);
+        settings.setLoadWithOverviewMode(true);
+        settings.setUseWideViewPort(true);
+
+        // Performance
+        settings.setRenderPriority(WebSettings.RenderPriority.HIGH);
+        settings.setCacheMode(WebSettings.LOAD_DEFAULT);
+        settings.setEnableSmoothTransition(true);
+
+        webView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+
+        // Scrollbars
+        webView.setVerticalScrollBarEnabled(false);
+        webView.setHorizontalScrollBarEnabled(false);
+        webView.setScrollbarFadingEnabled(true);
+        webView.setOverScrollMode(WebView.OVER_SCROLL_NEVER);
+        webView.setScrollBarStyle(View.SCROLLBARS_INSIDE_OVERLAY);
+
+        webView.setBackgroundColor(Color.TRANSPARENT);
+
+        ProgressBar progressBar = new ProgressBar(
+                activity,
+                null,
+                android.R.attr.progressBarStyleHorizontal);
+        progressBar.setMax(100);
+        progressBar.setProgress(0);
+        progressBar.setVisibility(View.GONE);
+
+        FrameLayout.LayoutParams progressParams = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT,
+                (int) (5 * activity.getResources().getDisplayMetrics().density));
+        progressParams.gravity = android.view.Gravity.BOTTOM;
+
+        FrameLayout.LayoutParams webViewParams = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT);
+        webViewContainer.addView(webView, webViewParams);
+        webViewContainer.addView(progressBar, progressParams);
+
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
+            webViewContainer.setElevation(10f);
+            webViewContainer.setTranslationZ(10f);
+        }
+
+        return new Entry(webViewContainer, webView, progressBar);
+    }
+
+    private void detach(Entry entry) {
+        ViewGroup parent = (ViewGroup) entry.container.getParent();
+        if (parent != null) {
+            parent.removeView(entry.container);
+        }
+    }
+
+    private void reset(Entry entry) {
+        WebView webView = entry.webView;
+        entry.clearDocumentStartScripts();
+        entry.clearJavascriptInterfaces();
+        entry.clearHistory = true;
+        webView.stopLoading();
+        webView.setWebChromeClient(null);
+        webView.setWebViewClient(new WebViewClient() {
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                entry.clearStaleHistory(url);
+            }
+
+            @Override
+            public boolean onRenderProcessGone(WebView view, RenderProcessGoneDetail detail) {
+                // An idle view cannot be recovered; drop it rather than let the app crash
+                idle.remove(entry);
+                detach(entry);
+                view.destroy();
+                return true;
+            }
+        });
+        webView.loadUrl(BLANK_URL);
+        // Undo any throttling from a hidden or retired instance
+        webView.onResume();
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
+            webView.setRendererPriorityPolicy(WebView.RENDERER_PRIORITY_IMPORTANT, false);
+        }
+
+        entry.container.setVisibility(View.VISIBLE);
+        entry.container.setOnApplyWindowInsetsListener(null);
+        entry.container.animate().cancel();
+        entry.container.setTranslationX(0);
+        entry.container.setTranslationY(0);
+        entry.progressBar.setProgress(0);
+        entry.progressBar.setVisibility(View.GONE);
+        entry.removePlaceholder();
+    }
+}
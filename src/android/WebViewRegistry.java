@@ -0,0 +1,121 @@
+package com.cb4rr.cordova.plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live WebView instances keyed by id. The registry enforces a maximum number of
+ * instances and an estimated memory budget; it only picks eviction candidates,
+ * the plugin performs the actual destroy. Must only be used on the UI thread.
+ */
+class WebViewRegistry {
+
+    static final String DEFAULT_ID = "default";
+
+    private final Map<String, WebViewInstance> instances = new LinkedHashMap<>();
+    private final int maxInstances;
+    private final long memoryBudgetBytes;
+    private final long rendererBytes;
+
+    /**
+     * @param maxInstances      maximum live instances, 0 for no limit
+     * @param memoryBudgetBytes estimated memory budget, 0 for no limit
+     * @param rendererBytes     estimated fixed cost of one renderer
+     */
+    WebViewRegistry(int maxInstances, long memoryBudgetBytes, long rendererBytes) {
+        this.maxInstances = maxInstances;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.rendererBytes = rendererBytes;
+    }
+
+    WebViewInstance get(String id) {
+        return instances.get(id);
+    }
+
+    void put(WebViewInstance instance) {
+        instances.put(instance.id, instance);
+    }
+
+    WebViewInstance remove(String id) {
+        return instances.remove(id);
+    }
+
+    boolean isEmpty() {
+        return instances.isEmpty();
+    }
+
+    int size() {
+        return instances.size();
+    }
+
+    Collection<WebViewInstance> all() {
+        return new ArrayList<>(instances.values());
+    }
+
+    /** The visible instance that was shown most recently, or null. */
+    WebViewInstance mostRecentlyShownVisible() {
+        WebViewInstance result = null;
+        for (WebViewInstance instance : instances.values()) {
+            if (instance.isVisible() && (result == null || instance.lastShownAt > result.lastShownAt)) {
+                result = instance;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the hidden instances that must be destroyed, least recently shown
+     * first, so that {@code incoming} more instances fit in the limits.
+     */
+    List<WebViewInstance> evictionCandidates(int incoming) {
+        List<WebViewInstance> hidden = new ArrayList<>();
+        for (WebViewInstance instance : instances.values()) {
+            if (!instance.isVisible()) {
+                hidden.add(instance);
+            }
+        }
+        Collections.sort(hidden, (a, b) -> Long.compare(a.lastShownAt, b.lastShownAt));
+
+        List<WebViewInstance> evicted = new ArrayList<>();
+        int count = instances.size();
+        long memory = estimatedMemoryBytes();
+        for (WebViewInstance instance : hidden) {
+            if (!exceedsLimits(count + incoming, memory + incoming * rendererBytes)) {
+                break;
+            }
+            evicted.add(instance);
+            count--;
+            memory -= instance.estimatedMemoryBytes(rendererBytes);
+        }
+        return evicted;
+    }
+
+    /**
+     * True when {@code incoming} more instances would exceed the instance limit
+     * even after evicting every hidden candidate. The memory budget is soft: it
+     * only drives eviction of hidden instances.
+     */
+    boolean isFull(int incoming) {
+        int remaining = instances.size() - evictionCandidates(incoming).size();
+        return maxInstances > 0 && remaining + incoming > maxInstances;
+    }
+
+    long estimatedMemoryBytes() {
+        long total = 0;
+        for (WebViewInstance instance : instances.values()) {
+            total += instance.estimatedMemoryBytes(rendererBytes);
+        }
+        return total;
+    }
+
+    private boolean exceedsLimits(int count, long memory) {
+        if (maxInstances > 0 && count > maxInstances) {
+            return true;
+        }
+        return memoryBudgetBytes > 0 && memory > memoryBudgetBytes;
+    }
+}
@@ -9,6 +9,7 @@
 @property (nonatomic, assign) BOOL canGoBack;
 @property (nonatomic, assign) BOOL canGoForward;
 @property (nonatomic, strong) NSString *currentCallbackId;
+@property (nonatomic, strong) NSString *eventCallbackId;
 
 // Public methods
 - (void)create:(CDVInvokedUrlCommand*)command;
@@ -19,5 +20,6 @@
 - (void)reload:(CDVInvokedUrlCommand*)command;
 - (void)goBack:(CDVInvokedUrlCommand*)command;
 - (void)goForward:(CDVInvokedUrlCommand*)command;
+- (void)subscribeEvents:(CDVInvokedUrlCommand*)command;
 
 @end
\ No newline at end of file
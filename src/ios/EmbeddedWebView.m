@@ -453,21 +453,36 @@
     }
 }
 
+- (void)subscribeEvents:(CDVInvokedUrlCommand*)command {
+    self.eventCallbackId = command.callbackId;
+    
+    CDVPluginResult *result = [CDVPluginResult resultWithStatus:CDVCommandStatus_NO_RESULT];
+    [result setKeepCallbackAsBool:YES];
+    [self.commandDelegate sendPluginResult:result callbackId:command.callbackId];
+}
+
 - (void)fireEvent:(NSString *)eventName withData:(NSString *)data {
     @try {
-        NSString *dataFormatted = data;
-        if (![data hasPrefix:@"{"]) {
-            dataFormatted = [NSString stringWithFormat:@"'%@'", data];
-        }
+        NSLog(@"[EmbeddedWebView] Firing event: %@ with data: %@", eventName, data);
         
-        NSString *js = [NSString stringWithFormat:@"cordova.fireDocumentEvent('embeddedwebview.%@', {detail: %@});", 
-                       eventName, dataFormatted];
+        if (self.eventCallbackId == nil) {
+            return;
+        }
         
-        NSLog(@"[EmbeddedWebView] Firing event: %@ with data: %@", eventName, data);
+        id detail = data ?: @"";
+        if ([data hasPrefix:@"{"]) {
+            id parsed = [NSJSONSerialization JSONObjectWithData:[data dataUsingEncoding:NSUTF8StringEncoding]
+                                                        options:0
+                                                          error:nil];
+            if (parsed) {
+                detail = parsed;
+            }
+        }
         
-        dispatch_async(dispatch_get_main_queue(), ^{
-            [self.commandDelegate evalJs:js];
-        });
+        NSArray *batch = @[@{ @"type": eventName, @"id": @"default", @"detail": detail }];
+        CDVPluginResult *result = [CDVPluginResult resultWithStatus:CDVCommandStatus_OK messageAsArray:batch];
+        [result setKeepCallbackAsBool:YES];
+        [self.commandDelegate sendPluginResult:result callbackId:self.eventCallbackId];
     } @catch (NSException *exception) {
         NSLog(@"[EmbeddedWebView] Error firing event: %@", exception.reason);
     }
@@ -492,6 +507,7 @@
 
 - (void)onReset {
     [self destroyWebView];
+    self.eventCallbackId = nil;
 }
 
 @end
\ No newline at end of file
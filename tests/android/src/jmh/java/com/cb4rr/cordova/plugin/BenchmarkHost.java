@@ -0,0 +1,68 @@
+package com.cb4rr.cordova.plugin;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaInterface;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.View;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cordova host for benchmarks on a plain JVM: results and UI-thread tasks are
+ * dropped, so a benchmark measures the plugin-thread side of an action.
+ */
+final class BenchmarkHost implements CordovaInterface, CordovaWebView {
+
+    private final Activity activity = new Activity();
+    private final ExecutorService threadPool = Executors.newSingleThreadExecutor();
+    private int nextCallbackId = 0;
+
+    /** A plugin attached to this host without running initialize(), which needs a real activity. */
+    EmbeddedWebView newPlugin() {
+        EmbeddedWebView plugin = new EmbeddedWebView();
+        plugin.cordova = this;
+        plugin.webView = this;
+        return plugin;
+    }
+
+    CallbackContext newCallback() {
+        return new CallbackContext("EmbeddedWebView" + nextCallbackId++, this);
+    }
+
+    void shutdown() {
+        threadPool.shutdownNow();
+    }
+
+    @Override
+    public Activity getActivity() {
+        return activity;
+    }
+
+    @Override
+    public Context getContext() {
+        return activity;
+    }
+
+    @Override
+    public ExecutorService getThreadPool() {
+        return threadPool;
+    }
+
+    @Override
+    public View getView() {
+        return null;
+    }
+
+    @Override
+    public void loadUrl(String url) {
+    }
+
+    @Override
+    public void sendPluginResult(PluginResult result, String callbackId) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * execute() on the plugin thread: argument decoding, the cached options lookup
+ * and the hand-off to the UI thread, which is dropped here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private BenchmarkHost host;
+    private EmbeddedWebView plugin;
+    private JSONArray createArgs;
+    private JSONArray loadUrlArgs;
+    private JSONArray setFrameArgs;
+    private JSONArray batchArgs;
+    private final JSONArray noArgs = new JSONArray();
+
+    @Setup
+    public void setUp() throws JSONException {
+        host = new BenchmarkHost();
+        plugin = host.newPlugin();
+        createArgs = new JSONArray()
+                .put("https://example.com/")
+                .put(OptionsBenchmark.typicalOptions());
+        loadUrlArgs = new JSONArray()
+                .put("https://example.com/next")
+                .put(new JSONObject().put("Authorization", "Bearer token"))
+                .put("main");
+        setFrameArgs = new JSONArray()
+                .put(new JSONObject().put("top", 56).put("bottom", 48).put("animate", 250))
+                .put("main");
+        batchArgs = new JSONArray()
+                .put(new JSONArray()
+                        .put(new JSONObject().put("action", "setFrame").put("args", setFrameArgs))
+                        .put(new JSONObject().put("action", "setVisible").put("args", new JSONArray().put(true).put("main")))
+                        .put(new JSONObject().put("action", "loadUrl").put("args", loadUrlArgs)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        host.shutdown();
+    }
+
+    @Benchmark
+    public boolean create() throws JSONException {
+        return plugin.execute("create", createArgs, host.newCallback());
+    }
+
+    @Benchmark
+    public boolean loadUrl() throws JSONException {
+        return plugin.execute("loadUrl", loadUrlArgs, host.newCallback());
+    }
+
+    @Benchmark
+    public boolean setFrame() throws JSONException {
+        return plugin.execute("setFrame", setFrameArgs, host.newCallback());
+    }
+
+    /** Answered on the plugin thread, so this includes building and encoding the result. */
+    @Benchmark
+    public boolean getMetrics() throws JSONException {
+        return plugin.execute("getMetrics", noArgs, host.newCallback());
+    }
+
+    /** Falls through every action comparison. */
+    @Benchmark
+    public boolean unknownAction() throws JSONException {
+        return plugin.execute("noSuchAction", noArgs, host.newCallback());
+    }
+
+    @Benchmark
+    public boolean batch() throws JSONException {
+        return plugin.execute("batch", batchArgs, host.newCallback());
+    }
+}
@@ -0,0 +1,87 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The event path behind fireEvent(): building and queueing events, coalescing
+ * state-like ones, and flushing the queue as one PluginResult. The diagnostics
+ * level decides whether fireEvent() also formats a debug log line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBenchmark {
+
+    @Param({ "off", "debug" })
+    public String diagnostics;
+
+    private BenchmarkHost host;
+    private EventChannel channel;
+    private JSONObject error;
+    private int progress = 0;
+
+    @Setup
+    public void setUp() throws JSONException {
+        Diagnostics.setLevel(Diagnostics.parseLevel(diagnostics));
+        host = new BenchmarkHost();
+        // A flush interval keeps scheduling on a Handler instead of the Choreographer
+        channel = new EventChannel(16);
+        channel.subscribe(host.newCallback());
+        error = new JSONObject().put("url", "https://example.com/").put("code", -2).put("message", "net::ERR_NAME_NOT_RESOLVED");
+    }
+
+    @TearDown
+    public void tearDown() {
+        Diagnostics.setLevel(Diagnostics.OFF);
+        host.shutdown();
+    }
+
+    /** One page load worth of events: start, progress updates coalescing into one, stop. */
+    @Benchmark
+    public void pageLoad() {
+        fireEvent("main", "loadStart", "https://example.com/");
+        for (int i = 10; i <= 100; i += 10) {
+            fireEvent("main", "loadProgress", String.valueOf(i));
+        }
+        fireEvent("main", "loadStop", "https://example.com/");
+        channel.flush();
+    }
+
+    @Benchmark
+    public void progressCoalesced() {
+        progress = (progress + 1) % 100;
+        fireEvent("main", "loadProgress", String.valueOf(progress));
+    }
+
+    @Benchmark
+    public void errorFlushed() {
+        fireEvent("main", "loadError", error);
+        channel.flush();
+    }
+
+    /** Mirrors EmbeddedWebView.fireEvent(), which needs an initialized plugin. */
+    private void fireEvent(String id, String eventName, Object detail) {
+        if (Diagnostics.debug()) {
+            android.util.Log.d("EmbeddedWebView", "Firing event: " + eventName + " for " + id + " with data: " + detail);
+        }
+        channel.post(id, eventName, detail);
+    }
+}
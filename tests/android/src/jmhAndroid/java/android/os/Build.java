@@ -0,0 +1,12 @@
+package android.os;
+
+/** Benchmark replacement: the framework Build reads system properties through native code. */
+public class Build {
+
+    private Build() {
+    }
+
+    public static class VERSION {
+        public static final int SDK_INT = 33;
+    }
+}
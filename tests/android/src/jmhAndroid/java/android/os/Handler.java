@@ -0,0 +1,28 @@
+package android.os;
+
+/**
+ * Benchmark replacement: there is no looper to run on, so posted work is
+ * dropped. Benchmarks measure the calling thread's side of a hop.
+ */
+public class Handler {
+
+    public Handler() {
+    }
+
+    public Handler(Looper looper) {
+    }
+
+    public final boolean post(Runnable r) {
+        return true;
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+    }
+
+    public final void removeCallbacksAndMessages(Object token) {
+    }
+}
@@ -0,0 +1,24 @@
+package android.os;
+
+/** Benchmark replacement backed by the JVM clock instead of native code. */
+public final class SystemClock {
+
+    private SystemClock() {
+    }
+
+    public static long uptimeMillis() {
+        return System.nanoTime() / 1000000L;
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1000000L;
+    }
+
+    public static long elapsedRealtimeNanos() {
+        return System.nanoTime();
+    }
+
+    public static long currentThreadTimeMillis() {
+        return System.nanoTime() / 1000000L;
+    }
+}
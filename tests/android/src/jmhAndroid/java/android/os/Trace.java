@@ -0,0 +1,24 @@
+package android.os;
+
+/** Benchmark replacement: no system trace is ever being captured. */
+public final class Trace {
+
+    private Trace() {
+    }
+
+    public static boolean isEnabled() {
+        return false;
+    }
+
+    public static void beginSection(String sectionName) {
+    }
+
+    public static void endSection() {
+    }
+
+    public static void beginAsyncSection(String methodName, int cookie) {
+    }
+
+    public static void endAsyncSection(String methodName, int cookie) {
+    }
+}
@@ -0,0 +1,7 @@
+package androidx.webkit;
+
+/** Stand-in for androidx.webkit's handle to a registered document-start script. */
+public interface ScriptHandler {
+
+    void remove();
+}
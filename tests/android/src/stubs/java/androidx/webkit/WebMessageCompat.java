@@ -0,0 +1,51 @@
+package androidx.webkit;
+
+/** Stand-in for androidx.webkit's WebMessageCompat, holding a string or an ArrayBuffer. */
+public class WebMessageCompat {
+
+    public static final int TYPE_STRING = 0;
+    public static final int TYPE_ARRAY_BUFFER = 1;
+
+    private final String data;
+    private final byte[] arrayBuffer;
+    private final WebMessagePortCompat[] ports;
+
+    public WebMessageCompat(String data) {
+        this(data, null);
+    }
+
+    public WebMessageCompat(String data, WebMessagePortCompat[] ports) {
+        this.data = data;
+        this.arrayBuffer = null;
+        this.ports = ports;
+    }
+
+    public WebMessageCompat(byte[] arrayBuffer) {
+        this(arrayBuffer, null);
+    }
+
+    public WebMessageCompat(byte[] arrayBuffer, WebMessagePortCompat[] ports) {
+        this.data = null;
+        this.arrayBuffer = arrayBuffer;
+        this.ports = ports;
+    }
+
+    public int getType() {
+        return arrayBuffer != null ? TYPE_ARRAY_BUFFER : TYPE_STRING;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public byte[] getArrayBuffer() {
+        if (arrayBuffer == null) {
+            throw new IllegalStateException("Not an ArrayBuffer message");
+        }
+        return arrayBuffer;
+    }
+
+    public WebMessagePortCompat[] getPorts() {
+        return ports;
+    }
+}
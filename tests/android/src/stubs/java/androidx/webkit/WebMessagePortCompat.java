@@ -0,0 +1,18 @@
+package androidx.webkit;
+
+import android.os.Handler;
+
+/** Stand-in for androidx.webkit's WebMessagePortCompat. */
+public abstract class WebMessagePortCompat {
+
+    public abstract void postMessage(WebMessageCompat message);
+
+    public abstract void close();
+
+    public abstract void setWebMessageCallback(Handler handler, WebMessageCallbackCompat callback);
+
+    public abstract static class WebMessageCallbackCompat {
+        public void onMessage(WebMessagePortCompat port, WebMessageCompat message) {
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package androidx.webkit;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.net.Uri;
+import android.os.Build;
+import android.webkit.WebView;
+
+import java.util.Set;
+
+/** Stand-in for androidx.webkit's WebViewCompat; unsupported features throw as they do on old WebViews. */
+public class WebViewCompat {
+
+    private WebViewCompat() {
+    }
+
+    public static ScriptHandler addDocumentStartJavaScript(WebView webView, String script, Set<String> allowedOriginRules) {
+        throw new UnsupportedOperationException("This method is not supported by the current version of the framework.");
+    }
+
+    public static WebMessagePortCompat[] createWebMessageChannel(WebView webView) {
+        throw new UnsupportedOperationException("This method is not supported by the current version of the framework.");
+    }
+
+    public static void postWebMessage(WebView webView, WebMessageCompat message, Uri targetOrigin) {
+        throw new UnsupportedOperationException("This method is not supported by the current version of the framework.");
+    }
+
+    public static PackageInfo getCurrentWebViewPackage(Context context) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ? WebView.getCurrentWebViewPackage() : null;
+    }
+}
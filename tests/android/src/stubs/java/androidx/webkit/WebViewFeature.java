@@ -0,0 +1,19 @@
+package androidx.webkit;
+
+/** Stand-in for androidx.webkit feature detection: no optional feature is available on the JVM. */
+public class WebViewFeature {
+
+    public static final String DOCUMENT_START_SCRIPT = "DOCUMENT_START_SCRIPT";
+    public static final String CREATE_WEB_MESSAGE_CHANNEL = "CREATE_WEB_MESSAGE_CHANNEL";
+    public static final String POST_WEB_MESSAGE = "POST_WEB_MESSAGE";
+    public static final String WEB_MESSAGE_PORT_POST_MESSAGE = "WEB_MESSAGE_PORT_POST_MESSAGE";
+    public static final String WEB_MESSAGE_PORT_SET_MESSAGE_CALLBACK = "WEB_MESSAGE_PORT_SET_MESSAGE_CALLBACK";
+    public static final String WEB_MESSAGE_ARRAY_BUFFER = "WEB_MESSAGE_ARRAY_BUFFER";
+
+    private WebViewFeature() {
+    }
+
+    public static boolean isFeatureSupported(String feature) {
+        return false;
+    }
+}
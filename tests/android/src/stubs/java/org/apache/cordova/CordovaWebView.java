@@ -0,0 +1,16 @@
+package org.apache.cordova;
+
+import android.content.Context;
+import android.view.View;
+
+/** Minimal stand-in for the Cordova WebView: only what plugins use. */
+public interface CordovaWebView {
+
+    View getView();
+
+    Context getContext();
+
+    void loadUrl(String url);
+
+    void sendPluginResult(PluginResult cr, String callbackId);
+}
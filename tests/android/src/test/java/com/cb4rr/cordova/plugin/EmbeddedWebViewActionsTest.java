@@ -0,0 +1,661 @@
+package com.cb4rr.cordova.plugin;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaPreferences;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.awt.image.BufferedImage;
+import javax.imageio.ImageIO;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.webkit.CookieManager;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/** Every execute() action, with its success and its main failure answers. */
+public class EmbeddedWebViewActionsTest extends PluginTestCase {
+
+    private static final String URL = "https://example.com/";
+
+    @Override
+    protected void configure(CordovaPreferences preferences) {
+        preferences.set("EmbeddedWebViewMaxInstances", 2);
+        preferences.set("EmbeddedWebViewPoolSize", 2);
+    }
+
+    @Test
+    public void unknownActionIsNotHandled() throws JSONException {
+        assertFalse(plugin.execute("noSuchAction", new JSONArray(), new CallbackContext("x", plugin.webView)));
+    }
+
+    @Test
+    public void createLoadsTheUrlInAVisibleContainer() throws JSONException {
+        assertOk(create("a", URL), "WebView created successfully");
+
+        WebView webView = onlyWebView();
+        assertEquals(URL, shadowOf(webView).getLastLoadedUrl());
+        assertEquals(View.VISIBLE, ((View) webView.getParent()).getVisibility());
+    }
+
+    @Test
+    public void createPassesInitialHeaders() throws JSONException {
+        JSONObject options = new JSONObject().put("id", "a").put("headers", new JSONObject().put("X-Token", "t"));
+        assertOk(create(URL, options), "WebView created successfully");
+
+        Map<String, String> headers = shadowOf(onlyWebView()).getLastAdditionalHttpHeaders();
+        assertEquals("t", headers.get("X-Token"));
+    }
+
+    @Test
+    public void createWithoutIdUsesTheDefaultInstance() throws JSONException {
+        create(URL, new JSONObject());
+
+        JSONObject instance = ((JSONArray) valueOf(exec("getInstances"))).getJSONObject(0);
+        assertEquals(WebViewRegistry.DEFAULT_ID, instance.getString("id"));
+    }
+
+    @Test
+    public void createReplacesAnInstanceWithTheSameId() throws JSONException {
+        create("a", URL);
+        create("a", "https://example.org/");
+
+        assertEquals(1, ((JSONArray) valueOf(exec("getInstances"))).length());
+        assertEquals("https://example.org/", shadowOf(onlyWebView()).getLastLoadedUrl());
+    }
+
+    @Test
+    public void createFailsBeyondMaxInstances() throws JSONException {
+        create("a", URL);
+        create("b", URL);
+
+        assertError(create("c", URL), "Maximum number of WebView instances reached");
+    }
+
+    @Test
+    public void destroyRemovesTheInstance() throws JSONException {
+        create("a", URL);
+
+        assertOk(exec("destroy", "a"), "WebView destroyed");
+        assertEquals(0, ((JSONArray) valueOf(exec("getInstances"))).length());
+        assertTrue(webViews().isEmpty());
+        assertError(exec("destroy", "a"), "No WebView to destroy");
+    }
+
+    @Test
+    public void loadUrlNavigatesWithHeaders() throws JSONException {
+        create("a", URL);
+
+        assertOk(exec("loadUrl", "https://example.com/next", new JSONObject().put("X-A", "1"), "a"),
+                "URL loaded: https://example.com/next");
+        WebView webView = onlyWebView();
+        assertEquals("https://example.com/next", shadowOf(webView).getLastLoadedUrl());
+        assertEquals("1", shadowOf(webView).getLastAdditionalHttpHeaders().get("X-A"));
+    }
+
+    @Test
+    public void loadUrlWithoutInstanceFails() throws JSONException {
+        assertError(exec("loadUrl", URL, null, "missing"), "WebView not initialized");
+    }
+
+    @Test
+    public void executeScriptAnswersWithTheScriptResult() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+
+        String callbackId = call("executeScript", "document.title", "a");
+        assertEquals("document.title", shadowOf(webView).getLastEvaluatedJavascript());
+        assertNull(lastResult(callbackId));
+
+        shadowOf(webView).getLastEvaluatedJavascriptCallback().onReceiveValue("\"Example\"");
+        assertOk(lastResult(callbackId), "\"Example\"");
+    }
+
+    @Test
+    public void executeScriptWithoutInstanceFails() throws JSONException {
+        assertError(exec("executeScript", "1", "missing"), "WebView not initialized");
+    }
+
+    @Test
+    public void syncSessionWritesCookiesAndStorageInOnePass() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+        JSONObject session = new JSONObject()
+                .put("cookies", new JSONArray()
+                        .put(new JSONObject().put("url", URL).put("name", "sid").put("value", "1"))
+                        .put(new JSONObject().put("url", URL).put("name", "theme").put("value", "dark")))
+                .put("localStorage", new JSONObject().put("token", "t"))
+                .put("headers", new JSONObject().put("Authorization", "Bearer t"));
+
+        String callbackId = call("syncSession", session, "a");
+        idle();
+        String cookies = CookieManager.getInstance().getCookie(URL);
+        assertTrue(cookies.contains("sid=1") && cookies.contains("theme=dark"));
+        assertTrue(shadowOf(webView).getLastEvaluatedJavascript().contains("{\"token\":\"t\"}"));
+
+        shadowOf(webView).getLastEvaluatedJavascriptCallback().onReceiveValue("1");
+        JSONObject result = (JSONObject) valueOf(lastResult(callbackId));
+        assertEquals(2, result.getInt("cookies"));
+        assertEquals(1, result.getInt("storage"));
+    }
+
+    @Test
+    public void syncedHeadersReachSubResourcesButNotTheSharedCache() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/data", exchange -> {
+            byte[] body = ("token:" + exchange.getRequestHeaders().getFirst("Authorization")).getBytes("UTF-8");
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=600");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String origin = "http://127.0.0.1:" + server.getAddress().getPort();
+            JSONObject cache = new JSONObject().put("rules", new JSONArray().put(new JSONObject().put("origin", origin)));
+            create(origin + "/", new JSONObject().put("id", "a").put("responseCache", cache));
+            WebView webView = onlyWebView();
+
+            JSONObject session = new JSONObject().put("headers", new JSONObject().put("Authorization", "Bearer t"));
+            exec("syncSession", session, "a");
+            assertEquals("token:Bearer t", bodyOf(shadowOf(webView).getWebViewClient()
+                    .shouldInterceptRequest(webView, new Request(origin + "/data", false))));
+            assertEquals(0, ((JSONObject) valueOf(exec("getCacheStats"))).getInt("entries"));
+
+            exec("syncSession", new JSONObject().put("headers", new JSONObject()), "a");
+            assertEquals("token:null", bodyOf(shadowOf(webView).getWebViewClient()
+                    .shouldInterceptRequest(webView, new Request(origin + "/data", false))));
+            assertEquals(1, ((JSONObject) valueOf(exec("getCacheStats"))).getInt("entries"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static String bodyOf(WebResourceResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read; (read = response.getData().read(buffer)) > 0; ) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    public void syncSessionWithoutInstanceFails() throws JSONException {
+        JSONObject session = new JSONObject().put("cookies", new JSONArray()
+                .put(new JSONObject().put("url", URL).put("name", "orphan").put("value", "1")));
+        assertError(exec("syncSession", session, "missing"), "WebView not initialized");
+        String cookies = CookieManager.getInstance().getCookie(URL);
+        assertFalse(cookies != null && cookies.contains("orphan=1"));
+    }
+
+    @Test
+    public void setFrameMovesTheContainer() throws JSONException {
+        create("a", URL);
+        View container = (View) onlyWebView().getParent();
+        int top = ((FrameLayout.LayoutParams) container.getLayoutParams()).topMargin;
+
+        assertOk(exec("setFrame", new JSONObject().put("top", 40), "a"), "Frame updated");
+        assertEquals(top + 40, ((FrameLayout.LayoutParams) container.getLayoutParams()).topMargin);
+    }
+
+    @Test
+    public void setFrameWithoutInstanceFails() throws JSONException {
+        assertError(exec("setFrame", new JSONObject(), "missing"), "WebView not initialized");
+    }
+
+    @Test
+    public void setVisibleTogglesTheContainer() throws JSONException {
+        create("a", URL);
+        View container = (View) onlyWebView().getParent();
+
+        assertOk(exec("setVisible", false, "a"), "Visibility changed to: false");
+        assertEquals(View.GONE, container.getVisibility());
+        assertOk(exec("setVisible", true, "a"), "Visibility changed to: true");
+        assertEquals(View.VISIBLE, container.getVisibility());
+    }
+
+    @Test
+    public void reloadReloadsThePage() throws JSONException {
+        create("a", URL);
+
+        assertOk(exec("reload", "a"), "WebView reloaded");
+        assertEquals(1, shadowOf(onlyWebView()).getReloadInvocations());
+    }
+
+    @Test
+    public void goBackFollowsHistory() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+
+        assertError(exec("goBack", "a"), "Cannot go back");
+
+        shadowOf(webView).setCanGoBack(true);
+        assertOk(exec("goBack", "a"), "Navigated back");
+        assertEquals(1, shadowOf(webView).getGoBackInvocations());
+    }
+
+    @Test
+    public void goForwardWithoutHistoryFails() throws JSONException {
+        create("a", URL);
+
+        assertError(exec("goForward", "a"), "Cannot go forward");
+        assertEquals(0, shadowOf(onlyWebView()).getGoForwardInvocations());
+    }
+
+    @Test
+    public void prewarmFillsThePool() throws JSONException {
+        String callbackId = call("prewarm", 2);
+        // The pool builds one WebView per idle pass of the main looper
+        assertNull(lastResult(callbackId));
+        new Handler(Looper.getMainLooper()).post(() -> { });
+        idle();
+
+        JSONObject stats = (JSONObject) valueOf(lastResult(callbackId));
+        assertEquals(2, stats.getInt("idle"));
+        assertEquals(2, ((JSONObject) valueOf(exec("getPoolStats"))).getInt("idle"));
+    }
+
+    @Test
+    public void createTakesAPrewarmedWebView() throws JSONException {
+        exec("prewarm", 1);
+        create("a", URL);
+
+        JSONObject stats = (JSONObject) valueOf(exec("getPoolStats"));
+        assertEquals(1, stats.getInt("hits"));
+        assertEquals(0, stats.getInt("idle"));
+    }
+
+    @Test
+    public void registeredScriptsAreInvokedAndUnregistered() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+
+        PluginResult registered = exec("registerScript", "function(){ return 1; }");
+        assertStatus(PluginResult.Status.OK, registered);
+        String handle = (String) valueOf(registered);
+
+        JSONArray calls = new JSONArray().put(new JSONObject().put("handle", handle).put("args", new JSONArray()));
+        String callbackId = call("invokeScripts", calls, "a");
+        shadowOf(webView).getLastEvaluatedJavascriptCallback().onReceiveValue("[{\"value\":1}]");
+        JSONArray invoked = (JSONArray) valueOf(lastResult(callbackId));
+        assertEquals(1, invoked.getJSONObject(0).getInt("value"));
+
+        assertOk(exec("unregisterScript", handle), "Script unregistered: " + handle);
+        assertError(exec("unregisterScript", handle), "Unknown script handle: " + handle);
+    }
+
+    @Test
+    public void invokeScriptsWithoutInstanceFails() throws JSONException {
+        assertError(exec("invokeScripts", new JSONArray(), "missing"), "WebView not initialized");
+    }
+
+    @Test
+    public void preloadedPageIsSwappedInByLoadUrl() throws JSONException {
+        create("a", URL);
+        String next = "https://example.com/next";
+
+        assertOk(exec("preload", next, null, "a"), "Preloading: " + next);
+        List<WebView> webViews = webViews();
+        assertEquals(2, webViews.size());
+        WebView preloaded = webViews.get(1);
+        assertEquals(View.INVISIBLE, ((View) preloaded.getParent()).getVisibility());
+        assertEquals(next, shadowOf(preloaded).getLastLoadedUrl());
+
+        assertOk(exec("loadUrl", next, null, "a"), "URL loaded: " + next);
+        assertEquals(View.VISIBLE, ((View) preloaded.getParent()).getVisibility());
+    }
+
+    @Test
+    public void precacheAndCacheStatsReportTheResponseCache() throws JSONException {
+        JSONObject precached = (JSONObject) valueOf(exec("precache", new JSONArray()));
+        assertEquals(0, precached.getInt("precached"));
+
+        JSONObject stats = (JSONObject) valueOf(exec("getCacheStats"));
+        assertEquals(0, stats.getInt("entries"));
+        assertTrue(stats.has("maxBytes"));
+    }
+
+    @Test
+    public void navigationStateIsAvailableOncePageFinished() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+        assertError(exec("getNavigationState", "a"), "WebView not initialized");
+
+        shadowOf(webView).getWebViewClient().onPageFinished(webView, URL);
+        idle();
+
+        JSONObject state = (JSONObject) valueOf(exec("getNavigationState", "a"));
+        assertFalse(state.getBoolean("canGoBack"));
+        assertFalse(state.getBoolean("canGoForward"));
+
+        exec("destroy", "a");
+        assertError(exec("getNavigationState", "a"), "WebView not initialized");
+    }
+
+    @Test
+    public void recreatedInstanceDoesNotInheritHistory() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+        shadowOf(webView).pushEntryToHistory(URL);
+        shadowOf(webView).pushEntryToHistory(URL + "next");
+        shadowOf(webView).getWebViewClient().doUpdateVisitedHistory(webView, URL + "next", false);
+        assertTrue(((JSONObject) valueOf(exec("getNavigationState", "a"))).getBoolean("canGoBack"));
+
+        create("a", URL);
+        assertEquals(webView, onlyWebView());
+        shadowOf(webView).getWebViewClient().doUpdateVisitedHistory(webView, URL, false);
+        assertTrue(shadowOf(webView).wasClearHistoryCalled());
+        assertFalse(((JSONObject) valueOf(exec("getNavigationState", "a"))).getBoolean("canGoBack"));
+
+        assertOk(exec("destroy", "a"), "WebView destroyed");
+        assertNull(shadowOf(webView).getJavascriptInterface("EmbeddedWebViewHistory"));
+    }
+
+    @Test
+    public void requestFilterBlocksSubResourcesAndCountsThem() throws JSONException {
+        JSONObject filter = new JSONObject().put("block", new JSONArray().put("ads.example.net"));
+        create(URL, new JSONObject().put("id", "a").put("requestFilter", filter));
+        WebView webView = onlyWebView();
+
+        WebResourceResponse blocked = shadowOf(webView).getWebViewClient()
+                .shouldInterceptRequest(webView, new Request("https://cdn.ads.example.net/ad.js", false));
+        assertNotNull(blocked);
+        assertNull(shadowOf(webView).getWebViewClient()
+                .shouldInterceptRequest(webView, new Request("https://ads.example.net/", true)));
+        assertNull(shadowOf(webView).getWebViewClient()
+                .shouldInterceptRequest(webView, new Request("https://example.com/app.js", false)));
+
+        JSONObject stats = (JSONObject) valueOf(exec("getBlockStats"));
+        assertEquals(2, stats.getInt("lookups"));
+        assertEquals(1, stats.getInt("blocked"));
+        assertEquals(1, stats.getJSONObject("hosts").getInt("cdn.ads.example.net"));
+    }
+
+    @Test
+    public void imageTranscodingOnlyCoversConfiguredOrigins() throws JSONException {
+        JSONObject transcoding = new JSONObject().put("origins", new JSONArray().put("https://*.cdn.example.com"));
+        create(URL, new JSONObject().put("id", "a").put("imageTranscoding", transcoding));
+        WebView webView = onlyWebView();
+
+        assertNull(shadowOf(webView).getWebViewClient()
+                .shouldInterceptRequest(webView, new Request("https://example.org/photo.jpg", false)));
+        assertNull(shadowOf(webView).getWebViewClient()
+                .shouldInterceptRequest(webView, new Request("https://img.cdn.example.com/app.js", false)));
+
+        JSONObject stats = (JSONObject) valueOf(exec("getImageStats"));
+        assertEquals(0, stats.getInt("transcoded"));
+        assertEquals(0, stats.getInt("bypassed"));
+        assertEquals(0, stats.getInt("entries"));
+    }
+
+    @Test
+    public void placeholderIsShownUntilThePageCommits() throws Exception {
+        File previews = new File(activity.getCacheDir(), "EmbeddedWebViewPreviews");
+        assertTrue(previews.mkdirs());
+        try (FileOutputStream out = new FileOutputStream(new File(previews, ResponseCache.keyFor(URL) + ".jpg"))) {
+            Bitmap.createBitmap(20, 10, Bitmap.Config.ARGB_8888).compress(Bitmap.CompressFormat.JPEG, 70, out);
+        }
+
+        create(URL, new JSONObject().put("id", "a").put("placeholder", true));
+        WebView webView = onlyWebView();
+        FrameLayout container = (FrameLayout) webView.getParent();
+        assertTrue(container.getChildAt(1) instanceof ImageView);
+
+        shadowOf(webView).getWebViewClient().onPageCommitVisible(webView, URL);
+        idle();
+        assertFalse(container.getChildAt(1) instanceof ImageView);
+    }
+
+    @Test
+    public void imagesAreTranscodedCachedAndRevalidated() throws Exception {
+        final AtomicInteger fetches = new AtomicInteger();
+        final AtomicInteger notModified = new AtomicInteger();
+        final byte[] png = noisePng(1280, 640);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            fetches.incrementAndGet();
+            boolean revalidating = exchange.getRequestURI().getPath().startsWith("/stale");
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("Cache-Control", revalidating ? "no-cache" : "max-age=600");
+            exchange.getResponseHeaders().set("ETag", "\"1\"");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.getResponseHeaders().set("Timing-Allow-Origin", "*");
+            if ("\"1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.sendResponseHeaders(200, png.length);
+                exchange.getResponseBody().write(png);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            String origin = "http://127.0.0.1:" + server.getAddress().getPort();
+            JSONObject transcoding = new JSONObject().put("origins", new JSONArray().put(origin));
+            create(URL, new JSONObject().put("id", "a").put("imageTranscoding", transcoding));
+            WebView webView = onlyWebView();
+            Map<String, String> accept = Collections.singletonMap("Accept", "image/webp,image/*");
+
+            for (int i = 0; i < 2; i++) {
+                WebResourceResponse image = shadowOf(webView).getWebViewClient()
+                        .shouldInterceptRequest(webView, new Request(origin + "/fresh.png", "GET", accept));
+                assertEquals("image/webp", image.getMimeType());
+                assertTrue(image.getResponseHeaders().get("Cache-Control").startsWith("max-age="));
+                assertEquals("*", image.getResponseHeaders().get("access-control-allow-origin"));
+                assertEquals("*", image.getResponseHeaders().get("timing-allow-origin"));
+            }
+            assertEquals(1, fetches.get());
+
+            for (int i = 0; i < 2; i++) {
+                WebResourceResponse image = shadowOf(webView).getWebViewClient()
+                        .shouldInterceptRequest(webView, new Request(origin + "/stale.png", "GET", accept));
+                assertEquals("image/webp", image.getMimeType());
+                assertEquals("no-cache", image.getResponseHeaders().get("Cache-Control"));
+                assertEquals("*", image.getResponseHeaders().get("access-control-allow-origin"));
+            }
+            assertEquals(3, fetches.get());
+            assertEquals(1, notModified.get());
+
+            JSONObject stats = (JSONObject) valueOf(exec("getImageStats"));
+            assertEquals(2, stats.getInt("transcoded"));
+            assertEquals(2, stats.getInt("hits"));
+            assertEquals(0, stats.getInt("passedThrough"));
+            assertEquals(2, stats.getInt("entries"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static byte[] noisePng(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(1);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void metricsAreRecordedAndReset() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+        shadowOf(webView).getWebViewClient().onPageStarted(webView, URL, null);
+
+        JSONObject metrics = (JSONObject) valueOf(exec("getMetrics"));
+        assertTrue(metrics.has("https://example.com"));
+
+        assertOk(exec("resetMetrics"), "Metrics reset");
+        assertEquals(0, ((JSONObject) valueOf(exec("getMetrics"))).length());
+    }
+
+    @Test
+    public void preconnectAcceptsOnlyHttpOrigins() throws JSONException {
+        assertError(exec("preconnect", new JSONArray().put("ftp://example.com")), "No http(s) origins to preconnect");
+        assertOk(exec("preconnect", new JSONArray().put(URL + "path").put(URL)), "Preconnecting: 1 origins");
+        idle();
+    }
+
+    @Test
+    public void preconnectOnCreateDoesNotBuildAnExtraView() throws JSONException {
+        create(URL, new JSONObject().put("id", "a").put("preconnect", new JSONArray().put("https://api.example.com")));
+        idle();
+        JSONObject stats = (JSONObject) valueOf(exec("getPoolStats"));
+        assertEquals(1, stats.getInt("hits") + stats.getInt("misses"));
+    }
+
+    @Test
+    public void subscribedEventsAreDeliveredInOneBatchPerFrame() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+        String events = call("subscribeEvents");
+        assertStatus(PluginResult.Status.NO_RESULT, lastResult(events));
+
+        shadowOf(webView).getWebChromeClient().onProgressChanged(webView, 10);
+        shadowOf(webView).getWebChromeClient().onProgressChanged(webView, 60);
+        shadowOf(webView).getWebViewClient().onPageStarted(webView, URL, null);
+        idle();
+
+        JSONArray batch = (JSONArray) valueOf(lastResult(events));
+        assertEquals(2, batch.length());
+        assertEquals("loadProgress", batch.getJSONObject(0).getString("type"));
+        assertEquals("60", batch.getJSONObject(0).getString("detail"));
+        assertEquals("loadStart", batch.getJSONObject(1).getString("type"));
+        assertEquals("a", batch.getJSONObject(1).getString("id"));
+    }
+
+    @Test
+    public void channelsOpenAndClose() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+
+        String channel = call("openChannel", "data", "a");
+        assertStatus(PluginResult.Status.NO_RESULT, results(channel).get(0));
+        assertEquals(1, shadowOf(webView).getCreatedPorts().size());
+
+        assertOk(exec("closeChannel", "data", "a"), "Channel closed: data");
+        assertError(exec("closeChannel", "data", "a"), "Channel not open: data");
+        assertError(exec("channelSend", "data", "x", false, "a"), "Channel not open: data");
+    }
+
+    @Test
+    public void channelsNeedAnHttpOrigin() throws JSONException {
+        create("a", "about:blank");
+        assertError(exec("openChannel", "data", "a"), "Channel needs a page with an http(s) origin");
+        assertEquals(0, shadowOf(onlyWebView()).getCreatedPorts().size());
+    }
+
+    @Test
+    public void getInstancesListsEveryInstance() throws JSONException {
+        create("a", URL);
+        create("b", URL);
+        exec("setVisible", false, "a");
+
+        JSONArray instances = (JSONArray) valueOf(exec("getInstances"));
+        assertEquals(2, instances.length());
+        JSONObject a = instances.getJSONObject(0).getString("id").equals("a")
+                ? instances.getJSONObject(0) : instances.getJSONObject(1);
+        assertFalse(a.getBoolean("visible"));
+        assertTrue(a.has("state"));
+    }
+
+    @Test
+    public void batchRunsStepsInOrderAndWaitsForAsyncOnes() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+        JSONArray calls = new JSONArray()
+                .put(step("setVisible", false, "a"))
+                .put(step("executeScript", "1 + 1", "a"))
+                .put(step("reload", "a"));
+
+        String callbackId = call("batch", calls);
+        assertNull(lastResult(callbackId));
+        assertEquals(0, shadowOf(webView).getReloadInvocations());
+
+        shadowOf(webView).getLastEvaluatedJavascriptCallback().onReceiveValue("2");
+        idle();
+
+        JSONArray steps = (JSONArray) valueOf(lastResult(callbackId));
+        assertEquals(3, steps.length());
+        assertEquals("Visibility changed to: false", steps.getJSONObject(0).getString("value"));
+        assertEquals("2", steps.getJSONObject(1).getString("value"));
+        assertEquals("reload", steps.getJSONObject(2).getString("action"));
+        assertEquals(1, shadowOf(webView).getReloadInvocations());
+    }
+
+    @Test
+    public void batchStopsOnErrorWhenAsked() throws JSONException {
+        create("a", URL);
+        JSONArray calls = new JSONArray()
+                .put(step("reload", "missing"))
+                .put(step("reload", "a"));
+
+        JSONArray steps = (JSONArray) valueOf(exec("batch", calls, new JSONObject().put("stopOnError", true)));
+        assertEquals(1, steps.length());
+        assertEquals("WebView not initialized", steps.getJSONObject(0).getString("error"));
+        assertEquals(0, shadowOf(onlyWebView()).getReloadInvocations());
+
+        steps = (JSONArray) valueOf(exec("batch", calls));
+        assertEquals(2, steps.length());
+    }
+
+    @Test
+    public void batchRejectsKeepCallbackAndUnknownActions() throws JSONException {
+        assertError(exec("batch", new JSONArray().put(step("openChannel", "data", "a"))),
+                "Action not supported in batch: openChannel");
+        assertError(exec("batch", new JSONArray().put(step("noSuchAction"))),
+                "Unknown action in batch: noSuchAction");
+    }
+
+    @Test
+    public void setDiagnosticsChangesTheLevel() throws JSONException {
+        assertOk(exec("setDiagnostics", "DEBUG"), "debug");
+        assertTrue(Diagnostics.debug());
+        assertOk(exec("setDiagnostics", "off"), "off");
+        assertFalse(Diagnostics.info());
+        assertError(exec("setDiagnostics", "loud"), "Unknown diagnostics level: loud");
+    }
+
+    private static JSONObject step(String action, Object... args) throws JSONException {
+        JSONArray json = new JSONArray();
+        for (Object arg : args) {
+            json.put(arg);
+        }
+        return new JSONObject().put("action", action).put("args", json);
+    }
+
+    /** A GET request as WebView hands it to shouldInterceptRequest(). */
+}
@@ -0,0 +1,158 @@
+package com.cb4rr.cordova.plugin;
+
+import org.apache.cordova.CordovaPreferences;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import android.webkit.RenderProcessGoneDetail;
+import android.webkit.WebView;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/** Activity and page lifecycle hooks: pause/resume, destroy, reset, back button, renderer loss. */
+public class EmbeddedWebViewLifecycleTest extends PluginTestCase {
+
+    private static final String URL = "https://example.com/";
+
+    @Override
+    protected void configure(CordovaPreferences preferences) {
+        preferences.set("EmbeddedWebViewMaxInstances", 2);
+    }
+
+    @Test
+    public void pauseThrottlesAndResumeWakesVisibleInstances() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+
+        plugin.onPause(false);
+        assertTrue(shadowOf(webView).wasOnPauseCalled());
+        assertEquals("throttled", instance("a").getString("state"));
+
+        plugin.onResume(false);
+        idle();
+        assertTrue(shadowOf(webView).wasOnResumeCalled());
+        assertEquals("active", instance("a").getString("state"));
+    }
+
+    @Test
+    public void onDestroyDestroysEveryWebView() throws JSONException {
+        create("a", URL);
+        create("b", URL);
+        exec("preload", "https://example.com/next", null, "a");
+        String events = call("subscribeEvents");
+
+        List<WebView> webViews = webViews();
+        assertEquals(3, webViews.size());
+        destroyPlugin();
+        for (WebView webView : webViews) {
+            assertTrue(shadowOf(webView).wasDestroyCalled());
+        }
+        assertTrue("Containers left in the Cordova layout", webViews().isEmpty());
+
+        // Events queued after destroy have no subscriber left
+        int delivered = results(events).size();
+        idle();
+        assertEquals(delivered, results(events).size());
+    }
+
+    @Test
+    public void onResetDropsInstancesAndEventSubscriber() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+        String events = call("subscribeEvents");
+        String handle = (String) valueOf(exec("registerScript", "return 1;"));
+
+        plugin.onReset();
+        idle();
+
+        assertTrue(shadowOf(webView).wasDestroyCalled());
+        assertEquals(0, ((JSONArray) valueOf(exec("getInstances"))).length());
+        assertTrue("Containers left in the Cordova layout", webViews().isEmpty());
+        assertEquals(1, results(events).size());
+
+        // The plugin stays usable for the reloaded Cordova page
+        assertOk(create("a", URL), "WebView created successfully");
+        assertNotSame(webView, onlyWebView());
+
+        // Scripts registered by the previous page are gone
+        assertError(exec("unregisterScript", handle), "Unknown script handle: " + handle);
+    }
+
+    @Test
+    public void backButtonIsOnlyInterceptedWithHistory() throws JSONException {
+        assertFalse(plugin.onBackPressed());
+
+        create("a", URL);
+        WebView webView = onlyWebView();
+        assertFalse(plugin.onBackPressed());
+
+        shadowOf(webView).setCanGoBack(true);
+        assertTrue(plugin.onBackPressed());
+        idle();
+        assertEquals(1, shadowOf(webView).getGoBackInvocations());
+    }
+
+    @Test
+    public void backButtonIgnoresHiddenInstances() throws JSONException {
+        create("a", URL);
+        WebView webView = onlyWebView();
+        shadowOf(webView).setCanGoBack(true);
+        exec("setVisible", false, "a");
+
+        assertFalse(plugin.onBackPressed());
+        assertEquals(0, shadowOf(webView).getGoBackInvocations());
+    }
+
+    @Test
+    public void rendererLossRebuildsTheInstance() throws JSONException {
+        create("a", URL);
+        WebView crashed = onlyWebView();
+        String events = call("subscribeEvents");
+
+        assertTrue(shadowOf(crashed).getWebViewClient().onRenderProcessGone(crashed, new Gone(true)));
+        idle();
+
+        WebView rebuilt = onlyWebView();
+        assertNotSame(crashed, rebuilt);
+        assertEquals("a", instance("a").getString("id"));
+        PluginResult delivered = lastResult(events);
+        assertTrue(delivered.getMessage().contains("renderProcessGone"));
+    }
+
+    private JSONObject instance(String id) throws JSONException {
+        JSONArray instances = (JSONArray) valueOf(exec("getInstances"));
+        for (int i = 0; i < instances.length(); i++) {
+            if (instances.getJSONObject(i).getString("id").equals(id)) {
+                return instances.getJSONObject(i);
+            }
+        }
+        throw new AssertionError("No instance " + id);
+    }
+
+    private static class Gone extends RenderProcessGoneDetail {
+        private final boolean crashed;
+
+        Gone(boolean crashed) {
+            this.crashed = crashed;
+        }
+
+        @Override
+        public boolean didCrash() {
+            return crashed;
+        }
+
+        @Override
+        public int rendererPriorityAtExit() {
+            return WebView.RENDERER_PRIORITY_IMPORTANT;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.cb4rr.cordova.plugin;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaInterface;
+import org.apache.cordova.CordovaPreferences;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.net.Uri;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebView;
+import android.widget.FrameLayout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the plugin inside a Robolectric activity the way Cordova would: actions
+ * go through execute() with JSON arguments and every PluginResult sent back is
+ * recorded by callback id. The test thread is the main looper's thread, so
+ * runOnUiThread() work runs inline and posted work runs on {@link #idle()}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public abstract class PluginTestCase {
+
+    protected Activity activity;
+    protected EmbeddedWebView plugin;
+    protected final CordovaPreferences preferences = new CordovaPreferences();
+    private final Map<String, List<PluginResult>> results = new HashMap<>();
+    private int nextCallbackId = 0;
+    private boolean destroyed = false;
+
+    @Before
+    public void setUpPlugin() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        FrameLayout cordovaView = new FrameLayout(activity);
+        activity.setContentView(cordovaView);
+        configure(preferences);
+        plugin = new EmbeddedWebView();
+        plugin.privateInitialize("EmbeddedWebView", new Host(), new Bridge(cordovaView), preferences);
+    }
+
+    @After
+    public void tearDownPlugin() {
+        Diagnostics.setLevel(Diagnostics.OFF);
+        if (!destroyed) {
+            destroyPlugin();
+        }
+    }
+
+    /** Override to set config.xml preferences before the plugin initializes. */
+    protected void configure(CordovaPreferences preferences) {
+    }
+
+    protected void destroyPlugin() {
+        destroyed = true;
+        plugin.onDestroy();
+    }
+
+    /** Runs {@code action} with {@code args} (null becomes JSON null) and returns its callback id. */
+    protected String call(String action, Object... args) throws JSONException {
+        String callbackId = "EmbeddedWebView" + nextCallbackId++;
+        JSONArray json = new JSONArray();
+        for (Object arg : args) {
+            json.put(arg != null ? arg : JSONObject.NULL);
+        }
+        assertTrue("Unhandled action " + action,
+                plugin.execute(action, json, new CallbackContext(callbackId, plugin.webView)));
+        idle();
+        return callbackId;
+    }
+
+    /** Runs {@code action} and returns the last result it sent, failing if it sent none. */
+    protected PluginResult exec(String action, Object... args) throws JSONException {
+        String callbackId = call(action, args);
+        PluginResult result = lastResult(callbackId);
+        assertNotNull(action + " sent no result", result);
+        return result;
+    }
+
+    protected List<PluginResult> results(String callbackId) {
+        List<PluginResult> sent = results.get(callbackId);
+        return sent != null ? sent : Collections.<PluginResult>emptyList();
+    }
+
+    protected PluginResult lastResult(String callbackId) {
+        List<PluginResult> sent = results(callbackId);
+        return sent.isEmpty() ? null : sent.get(sent.size() - 1);
+    }
+
+    /** Runs posted tasks and frame callbacks due within the next few frames. */
+    protected void idle() {
+        ShadowLooper.idleMainLooper();
+        ShadowLooper.shadowMainLooper().idleFor(Duration.ofMillis(50));
+    }
+
+    protected PluginResult create(String id, String url) throws JSONException {
+        return create(url, new JSONObject().put("id", id));
+    }
+
+    protected PluginResult create(String url, JSONObject options) throws JSONException {
+        return exec("create", url, options);
+    }
+
+    /** The WebViews attached to the activity content, in the order they were added. */
+    protected List<WebView> webViews() {
+        List<WebView> webViews = new ArrayList<>();
+        collectWebViews(activity.findViewById(android.R.id.content), webViews);
+        return webViews;
+    }
+
+    protected WebView onlyWebView() {
+        List<WebView> webViews = webViews();
+        assertEquals("WebViews attached", 1, webViews.size());
+        return webViews.get(0);
+    }
+
+    private static void collectWebViews(View view, List<WebView> webViews) {
+        if (view instanceof WebView) {
+            webViews.add((WebView) view);
+        } else if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectWebViews(group.getChildAt(i), webViews);
+            }
+        }
+    }
+
+    /** The decoded message of {@code result}: a String, Number, Boolean, JSONObject or JSONArray. */
+    protected static Object valueOf(PluginResult result) throws JSONException {
+        return new JSONArray("[" + result.getMessage() + "]").get(0);
+    }
+
+    protected static void assertOk(PluginResult result, Object expected) throws JSONException {
+        assertStatus(PluginResult.Status.OK, result);
+        assertEquals(expected, valueOf(result));
+    }
+
+    protected static void assertError(PluginResult result, Object expected) throws JSONException {
+        assertStatus(PluginResult.Status.ERROR, result);
+        assertEquals(expected, valueOf(result));
+    }
+
+    protected static void assertStatus(PluginResult.Status expected, PluginResult result) throws JSONException {
+        assertEquals("Status of " + result.getMessage(), expected.ordinal(), result.getStatus());
+    }
+
+    private class Host implements CordovaInterface {
+        private final ExecutorService threadPool = new DirectExecutor();
+
+        @Override
+        public Activity getActivity() {
+            return activity;
+        }
+
+        @Override
+        public Context getContext() {
+            return activity;
+        }
+
+        @Override
+        public ExecutorService getThreadPool() {
+            return threadPool;
+        }
+    }
+
+    private class Bridge implements CordovaWebView {
+        private final View view;
+
+        Bridge(View view) {
+            this.view = view;
+        }
+
+        @Override
+        public View getView() {
+            return view;
+        }
+
+        @Override
+        public Context getContext() {
+            return activity;
+        }
+
+        @Override
+        public void loadUrl(String url) {
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult result, String callbackId) {
+            List<PluginResult> sent = results.get(callbackId);
+            if (sent == null) {
+                sent = new ArrayList<>();
+                results.put(callbackId, sent);
+            }
+            sent.add(result);
+        }
+    }
+
+    /** Runs background work inline so tests see its effect when execute() returns. */
+    private static class DirectExecutor extends AbstractExecutorService {
+        private boolean shutdown = false;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    /** A sub-resource or main-frame request as WebView hands it to shouldInterceptRequest. */
+    protected static class Request implements WebResourceRequest {
+        private final Uri url;
+        private final String method;
+        private final boolean mainFrame;
+        private final Map<String, String> headers;
+
+        protected Request(String url, boolean mainFrame) {
+            this(url, "GET", mainFrame, Collections.<String, String>emptyMap());
+        }
+
+        protected Request(String url, String method, Map<String, String> headers) {
+            this(url, method, false, headers);
+        }
+
+        private Request(String url, String method, boolean mainFrame, Map<String, String> headers) {
+            this.url = Uri.parse(url);
+            this.method = method;
+            this.mainFrame = mainFrame;
+            this.headers = headers;
+        }
+
+        @Override
+        public Uri getUrl() {
+            return url;
+        }
+
+        @Override
+        public boolean isForMainFrame() {
+            return mainFrame;
+        }
+
+        @Override
+        public boolean isRedirect() {
+            return false;
+        }
+
+        @Override
+        public boolean hasGesture() {
+            return false;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public Map<String, String> getRequestHeaders() {
+            return headers;
+        }
+    }
+}
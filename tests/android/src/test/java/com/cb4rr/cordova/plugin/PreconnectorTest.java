@@ -0,0 +1,74 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Origin normalization, the hints page and the cold and warmed setup metrics. */
+@RunWith(RobolectricTestRunner.class)
+public class PreconnectorTest {
+
+    private static final String ORIGIN = "https://api.example.com";
+
+    @Test
+    public void originsAreDistinctHttpOrigins() {
+        List<String> origins = Preconnector.originsOf(new JSONArray()
+                .put("https://API.example.com/v1").put(ORIGIN).put("ftp://example.com").put("http://cdn.example.com:8080/a"));
+        assertEquals(Arrays.asList(ORIGIN, "http://cdn.example.com:8080"), origins);
+        assertTrue(Preconnector.originsOf(null).isEmpty());
+    }
+
+    @Test
+    public void hintsPageCarriesEveryHint() {
+        String page = Preconnector.hintsPage(Arrays.asList(ORIGIN));
+        assertTrue(page.contains("<link rel=\"dns-prefetch\" href=\"" + ORIGIN + "\">"));
+        assertTrue(page.contains("<link rel=\"preconnect\" href=\"" + ORIGIN + "\">"));
+        assertTrue(page.contains("<link rel=\"preconnect\" href=\"" + ORIGIN + "\" crossorigin>"));
+    }
+
+    @Test
+    public void warmedLoadsAreRecordedAgainstColdOnes() throws JSONException {
+        PageMetrics metrics = new PageMetrics();
+        Preconnector preconnector = new Preconnector(metrics);
+        preconnector.recordSetup(ORIGIN, new JSONObject("{\"dns\":20,\"connect\":80}"));
+        preconnector.recordSetup(ORIGIN, new JSONObject("{\"ttfb\":5}"));
+
+        preconnector.warm(Arrays.asList(ORIGIN), command -> { });
+        preconnector.recordSetup(ORIGIN, new JSONObject("{\"dns\":0,\"connect\":10}"));
+
+        JSONObject recorded = metrics.toJson().getJSONObject(ORIGIN);
+        assertEquals(1, recorded.getJSONObject("coldSetup").getInt("count"));
+        assertEquals(100, recorded.getJSONObject("coldSetup").getDouble("p50"), 0);
+        assertEquals(10, recorded.getJSONObject("preconnectedSetup").getDouble("p50"), 0);
+        assertEquals(90, recorded.getJSONObject("preconnectSavings").getDouble("p50"), 0);
+        assertFalse(recorded.has("preconnectDns"));
+    }
+
+    @Test
+    public void warmedOriginsStayBounded() throws JSONException {
+        PageMetrics metrics = new PageMetrics();
+        Preconnector preconnector = new Preconnector(metrics);
+        for (String batch : new String[] { "a", "b", "c" }) {
+            JSONArray urls = new JSONArray();
+            for (int i = 0; i < 32; i++) {
+                urls.put("https://" + batch + i + ".example.com");
+            }
+            preconnector.warm(Preconnector.originsOf(urls), command -> { });
+        }
+
+        preconnector.recordSetup("https://a0.example.com", new JSONObject("{\"dns\":1,\"connect\":1}"));
+        preconnector.recordSetup("https://c0.example.com", new JSONObject("{\"dns\":1,\"connect\":1}"));
+        assertTrue(metrics.toJson().getJSONObject("https://a0.example.com").has("coldSetup"));
+        assertTrue(metrics.toJson().getJSONObject("https://c0.example.com").has("preconnectedSetup"));
+    }
+}
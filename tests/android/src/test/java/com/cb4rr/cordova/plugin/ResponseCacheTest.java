@@ -0,0 +1,79 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Rule matching and the Cache-Control, Expires and Vary handling of the response cache. */
+@RunWith(RobolectricTestRunner.class)
+public class ResponseCacheTest {
+
+    private static final long DEFAULT_MAX_AGE_MS = 60_000;
+
+    @Test
+    public void noCacheWinsWhereverItAppears() {
+        assertEquals(0, ResponseCache.expiresAt(headers("cache-control", "max-age=600, no-cache"), DEFAULT_MAX_AGE_MS));
+        assertEquals(0, ResponseCache.expiresAt(headers("cache-control", "no-cache, max-age=600"), DEFAULT_MAX_AGE_MS));
+        assertEquals(0, ResponseCache.expiresAt(headers("cache-control", "public, max-age=600, private"), 0));
+    }
+
+    @Test
+    public void maxAgeWinsOverExpires() {
+        long now = System.currentTimeMillis();
+        long expiresAt = ResponseCache.expiresAt(headers("cache-control", "public, max-age=\"600\"",
+                "expires", "Thu, 01 Jan 1970 00:00:00 GMT"), 0);
+        assertTrue(expiresAt >= now + 600_000 && expiresAt <= System.currentTimeMillis() + 600_000);
+        assertEquals(1000, ResponseCache.expiresAt(headers("expires", "Thu, 01 Jan 1970 00:00:01 GMT"), 0));
+    }
+
+    @Test
+    public void defaultMaxAgeNeedsAValidatorAndNoMustRevalidate() {
+        assertEquals(0, ResponseCache.expiresAt(headers(), DEFAULT_MAX_AGE_MS));
+        assertEquals(0, ResponseCache.expiresAt(headers("etag", "\"1\"", "cache-control", "must-revalidate"),
+                DEFAULT_MAX_AGE_MS));
+        assertTrue(ResponseCache.expiresAt(headers("etag", "\"1\""), DEFAULT_MAX_AGE_MS) > System.currentTimeMillis());
+        assertTrue(ResponseCache.expiresAt(headers("last-modified", "Thu, 01 Jan 1970 00:00:00 GMT"),
+                DEFAULT_MAX_AGE_MS) > System.currentTimeMillis());
+    }
+
+    @Test
+    public void privateNoStoreAndVaryingResponsesAreNotStored() {
+        assertTrue(ResponseCache.isStorable(headers("cache-control", "max-age=600")));
+        assertFalse(ResponseCache.isStorable(headers("cache-control", "max-age=600, no-store")));
+        assertFalse(ResponseCache.isStorable(headers("cache-control", "private, max-age=600")));
+        assertTrue(ResponseCache.isStorable(headers("vary", "Accept-Encoding")));
+        assertFalse(ResponseCache.isStorable(headers("vary", "Accept-Encoding, Cookie")));
+        assertFalse(ResponseCache.isStorable(headers("vary", "*")));
+    }
+
+    @Test
+    public void ruleOriginsAcceptWildcards() throws JSONException {
+        ResponseCache.Policy policy = ResponseCache.Policy.fromOptions(new JSONObject().put("responseCache",
+                new JSONObject().put("rules", new JSONArray()
+                        .put(new JSONObject().put("origin", "https://*.Example.com").put("path", "^/static/"))
+                        .put(new JSONObject().put("origin", "https://api.test")))));
+        assertTrue(policy.matches("https://cdn.example.com", "/static/app.js"));
+        assertFalse(policy.matches("https://cdn.example.com", "/api/user"));
+        assertFalse(policy.matches("http://cdn.example.com", "/static/app.js"));
+        assertTrue(policy.matches("https://api.test", "/v1"));
+        assertFalse(policy.matches("https://api.test.evil", "/v1"));
+    }
+
+    private static Map<String, String> headers(String... namesAndValues) {
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,65 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import android.webkit.WebResourceRequest;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Header rules, cookie strings and the storage script of syncSession. */
+@RunWith(RobolectricTestRunner.class)
+public class SessionSyncTest {
+
+    private static final Map<String, String> ACCEPT = Collections.singletonMap("Accept", "*/*");
+
+    @Test
+    public void headersGoToTheCurrentOriginByDefault() throws JSONException {
+        JSONObject session = new JSONObject().put("headers", new JSONObject().put("Authorization", "Bearer 2"));
+        SessionSync.Headers headers = SessionSync.Headers.fromSession(session, "https://example.com");
+
+        Map<String, String> sent = headers.apply(request("https://example.com/api", "GET")).getRequestHeaders();
+        assertEquals("Bearer 2", sent.get("Authorization"));
+        assertNull(sent.get("authorization"));
+        assertEquals("*/*", sent.get("Accept"));
+        assertNull(headers.apply(request("https://example.org/api", "GET")));
+        assertNull(headers.apply(request("https://example.com/api", "POST")));
+    }
+
+    @Test
+    public void headerOriginsAcceptWildcards() throws JSONException {
+        JSONObject session = new JSONObject()
+                .put("headers", new JSONObject().put("Authorization", "Bearer 2"))
+                .put("headerOrigins", new JSONArray().put("https://*.example.com"));
+        SessionSync.Headers headers = SessionSync.Headers.fromSession(session, "https://example.org");
+
+        assertEquals("Bearer 2", headers.apply(request("https://api.example.com/v1", "GET"))
+                .getRequestHeaders().get("Authorization"));
+        assertNull(headers.apply(request("https://example.org/", "GET")));
+        assertNull(SessionSync.Headers.fromSession(new JSONObject().put("headers", new JSONObject()), "https://a.com"));
+    }
+
+    @Test
+    public void cookiesAndStorageAreEncoded() throws JSONException {
+        JSONObject cookie = new JSONObject().put("url", "https://example.com").put("name", "sid").put("value", "1")
+                .put("path", "/").put("maxAge", 60).put("secure", true).put("sameSite", "Lax");
+        assertEquals("sid=1; Path=/; Max-Age=60; Secure; SameSite=Lax", SessionSync.toSetCookie(cookie));
+
+        assertNull(SessionSync.storageScript(null, new JSONObject()));
+        String script = SessionSync.storageScript(new JSONObject().put("a", JSONObject.NULL), null);
+        assertTrue(script.endsWith("({\"a\":null},{})"));
+    }
+
+    private static WebResourceRequest request(String url, String method) {
+        return new PluginTestCase.Request(url, method, ACCEPT);
+    }
+}
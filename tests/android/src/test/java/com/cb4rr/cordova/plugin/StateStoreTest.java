@@ -0,0 +1,66 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import android.os.Bundle;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Snapshot round trips and the version check on load. */
+@RunWith(RobolectricTestRunner.class)
+public class StateStoreTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void snapshotsRoundTripUnderTheSameVersion() throws JSONException {
+        File directory = folder.getRoot();
+        Bundle state = new Bundle();
+        state.putString("entry", "https://example.com/a");
+        new StateStore(directory, DIRECT, "7/webview:1").save("a", new StateStore.Snapshot(
+                "https://example.com/a", state, 0, 120, new JSONObject().put("k", "v")));
+
+        StateStore.Snapshot loaded = new StateStore(directory, DIRECT, "7/webview:1").load("a");
+        assertNotNull(loaded);
+        assertEquals("https://example.com/a", loaded.url);
+        assertEquals(120, loaded.scrollY);
+        assertEquals("https://example.com/a", loaded.state.getString("entry"));
+        assertEquals("v", loaded.storage.getString("k"));
+    }
+
+    @Test
+    public void snapshotsOfAnotherVersionAreDropped() {
+        File directory = folder.getRoot();
+        new StateStore(directory, DIRECT, "7/webview:1").save("a", new StateStore.Snapshot(
+                "https://example.com/a", new Bundle(), 0, 0, new JSONObject()));
+        assertEquals(1, directory.list().length);
+
+        assertNull(new StateStore(directory, DIRECT, "7/webview:2").load("a"));
+        assertEquals(0, directory.list().length);
+        assertNull(new StateStore(directory, DIRECT, "7/webview:1").load("a"));
+    }
+
+    @Test
+    public void versionNamesTheAppAndWebView() {
+        String version = StateStore.versionOf(RuntimeEnvironment.getApplication());
+        assertTrue(version, version.matches("\\d+/.+"));
+        assertFalse(version, version.startsWith("?"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.cb4rr.cordova.plugin;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/** The parts of the channel protocol the page script relies on. */
+public class StreamChannelTest {
+
+    @Test
+    public void bufferFramesCarryTheLastFlagAndABigEndianId() {
+        byte[] frame = StreamChannel.bufferFrame(0x01020304, true, new byte[] { 9, 8, 7, 6 }, 1, 2);
+        assertArrayEquals(new byte[] { 1, 1, 2, 3, 4, 8, 7 }, frame);
+
+        frame = StreamChannel.bufferFrame(258, false, new byte[0], 0, 0);
+        assertEquals(StreamChannel.BUFFER_HEADER, frame.length);
+        assertArrayEquals(new byte[] { 0, 0, 0, 1, 2 }, frame);
+    }
+
+    @Test
+    public void onlyHttpPagesHaveATargetOrigin() {
+        assertEquals("https://example.com", StreamChannel.targetOriginOf("https://Example.com/a?b"));
+        assertNull(StreamChannel.targetOriginOf("about:blank"));
+        assertNull(StreamChannel.targetOriginOf("file:///android_asset/www/index.html"));
+        assertNull(StreamChannel.targetOriginOf(null));
+    }
+}
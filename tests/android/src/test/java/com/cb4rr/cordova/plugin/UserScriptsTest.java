@@ -0,0 +1,40 @@
+package com.cb4rr.cordova.plugin;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowWebView;
+
+import android.webkit.WebView;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/** Origin rules of the injected scripts, which read like those of the other options. */
+@RunWith(RobolectricTestRunner.class)
+public class UserScriptsTest {
+
+    @Test
+    public void scriptsOnlyRunOnMatchingOrigins() throws JSONException {
+        UserScripts scripts = UserScripts.fromOptions(new JSONObject()
+                .put("smoothScroll", false)
+                .put("userScripts", new JSONArray().put(new JSONObject()
+                        .put("js", "window.injected=true;")
+                        .put("origins", new JSONArray().put("https://*.Example.com")))));
+        WebView webView = new WebView(RuntimeEnvironment.getApplication());
+        ShadowWebView shadow = shadowOf(webView);
+
+        scripts.inject(webView, "https://evil-example.com/");
+        assertNull(shadow.getLastEvaluatedJavascript());
+        scripts.inject(webView, "http://www.example.com/");
+        assertNull(shadow.getLastEvaluatedJavascript());
+
+        scripts.inject(webView, "https://www.example.com/page");
+        assertTrue(shadow.getLastEvaluatedJavascript().contains("window.injected=true;"));
+    }
+}
@@ -1,18 +1,129 @@
 let exec = require('cordova/exec');
+let channel = require('cordova/channel');
+
+// eventName -> [{ id, callback }]
+let listeners = {};
+
+// instance id -> latest navigationStateChanged detail
+let navigationStates = {};
+
+/** Instance id of a handle returned by EmbeddedWebView.instance(), or null for the default WebView */
+function instanceId(target) {
+    return (target && target._id) || null;
+}
+
+// action -> position of the instance id in its native arguments, for batch()
+let instanceArgIndex = {
+    destroy: 0, loadUrl: 2, preload: 2, executeScript: 1, syncSession: 1, invokeScripts: 1, setFrame: 1,
+    setVisible: 1, reload: 0, goBack: 0, goForward: 0, getNavigationState: 0, channelSend: 3, closeChannel: 1
+};
+
+/** Fan a native event batch out to the registered listeners */
+function dispatchEvents(batch) {
+    if (!Array.isArray(batch)) {
+        return;
+    }
+
+    batch.forEach(function (event) {
+        if (event.type === 'navigationStateChanged') {
+            navigationStates[event.id] = event.detail;
+        } else if (event.type === 'evicted') {
+            delete navigationStates[event.id];
+        }
+
+        let registered = listeners[event.type];
+        if (!registered) {
+            return;
+        }
+
+        registered.slice().forEach(function (entry) {
+            if (entry.id && entry.id !== event.id) {
+                return;
+            }
+            try {
+                entry.callback(event);
+            } catch (e) {
+                console.error('EmbeddedWebView listener error for ' + event.type + ':', e);
+            }
+        });
+    });
+}
+
+channel.onCordovaReady.subscribe(function () {
+    exec(dispatchEvents, function (err) {
+        console.error('EmbeddedWebView event channel error:', err);
+    }, 'EmbeddedWebView', 'subscribeEvents', []);
+});
 
 let EmbeddedWebView = {
+    /**
+     * Get a handle to the WebView with the given id. The handle exposes the same
+     * methods as EmbeddedWebView, scoped to that instance (Android)
+     * @param {string} id - Caller-chosen instance id
+     * @returns {object} Instance handle
+     *
+     * @example
+     * const portal = EmbeddedWebView.instance('portal');
+     * portal.create('https://example.com', { top: 56 });
+     * portal.setVisible(false);
+     */
+    instance: function (id) {
+        return Object.create(EmbeddedWebView, { _id: { value: id } });
+    },
+
+    /**
+     * List live WebView instances (Android)
+     * @param {function} successCallback - Receives [{ id, url, visible, state }], where state is
+     *   'active', 'throttled', 'frozen' or 'hibernated' (Android)
+     * @param {function} [errorCallback]
+     */
+    getInstances: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'getInstances', []);
+    },
+
     /**
      * Create and show an embedded WebView
      * @param {string} url - URL to load
      * @param {object} options - Layout and configuration options
      * @param {number} options.top - Top offset in pixels (distance from top of screen)
-     * @param {number} options.height - Height in pixels (visible area for the WebView)
+     * @param {number} [options.height] - Height in pixels (visible area for the WebView); fills to the bottom offset if omitted
+     * @param {number} [options.bottom] - Bottom offset in pixels
+     * @param {number} [options.left] - Left offset in pixels
+     * @param {number} [options.right] - Right offset in pixels
      * @param {object} [options.headers] - Optional custom HTTP headers
      * @param {object} [options.progressColor] - Optional progress bar color
      * @param {object} [options.progressHeight] - Optional progress bar height
      * @param {boolean} [options.enableZoom=false] - Enable zoom controls
      * @param {boolean} [options.clearCache=false] - Clear cache before loading
      * @param {string} [options.userAgent] - Custom User-Agent string
+     * @param {string} [options.id] - Instance id, defaults to the handle id or 'default'
+     * @param {object} [options.responseCache] - Serve matching sub-resources from the plugin's disk cache (Android)
+     * @param {Array<{origin: string, path: string}>} [options.responseCache.rules] - Origin and path regex pairs to cache;
+     *   origins may be '*' or 'https://*.example.com'
+     * @param {number} [options.responseCache.defaultMaxAge] - Freshness in seconds when the server sends no Cache-Control
+     * @param {boolean|object} [options.persistState] - Save URL, history, scroll position and storage to disk on
+     *   navigation and pause, so restoreState can rebuild the page after a restart (Android)
+     * @param {string[]} [options.persistState.storageKeys] - sessionStorage keys saved and restored with the page
+     * @param {boolean} [options.restoreState=false] - Restore the saved state of this id instead of loading url, if any (Android).
+     *   State saved before an app or WebView update is dropped and url loads instead
+     * @param {Array<object>} [options.userScripts] - Scripts and styles injected into every matching page (Android)
+     * @param {string} [options.userScripts[].js] - Script source
+     * @param {string} [options.userScripts[].css] - Style sheet text, used instead of js
+     * @param {string} [options.userScripts[].injectAt] - 'documentStart' or 'documentEnd'; styles default to
+     *   documentStart, scripts to documentEnd
+     * @param {string[]} [options.userScripts[].origins=['*']] - Origin rules such as 'https://*.example.com'
+     * @param {boolean} [options.smoothScroll=true] - Inject the smooth-scrolling style (Android)
+     * @param {object} [options.requestFilter] - Answer sub-resource requests to blocked hosts with empty responses (Android)
+     * @param {string[]} [options.requestFilter.block] - Hosts to block, including their subdomains
+     * @param {string[]} [options.requestFilter.allow] - Hosts exempt from blocking; the most specific rule wins
+     * @param {string} [options.requestFilter.blockFile] - Bundled file with one host per line, e.g. 'www/blocklist.txt'
+     * @param {object} [options.imageTranscoding] - Downscale JPEG/PNG sub-resources to the view width and serve them
+     *   as WebP from a disk cache (Android)
+     * @param {string[]} [options.imageTranscoding.origins=['*']] - Image origin rules such as 'https://*.example.com'
+     * @param {number} [options.imageTranscoding.quality=75] - WebP quality, 1-100
+     * @param {string[]} [options.preconnect] - Origins to open connections to while the WebView is built (Android)
+     * @param {boolean} [options.placeholder=false] - Capture a preview of each loaded page and show it while the same
+     *   URL loads again, until the page first paints (Android)
      * @param {function} [successCallback]
      * @param {function} [errorCallback]
      * 
@@ -43,8 +154,8 @@ let EmbeddedWebView = {
             options.top = 0;
         }
 
-        if (typeof options.height !== 'number') {
-            options.height = window.innerHeight;
+        if (instanceId(this)) {
+            options.id = instanceId(this);
         }
 
         exec(
@@ -58,7 +169,7 @@ let EmbeddedWebView = {
 
     /** Destroy the embedded WebView */
     destroy: function (successCallback, errorCallback) {
-        exec(successCallback, errorCallback, 'EmbeddedWebView', 'destroy', []);
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'destroy', [instanceId(this)]);
     },
 
     /** Navigate to a new URL in the WebView */
@@ -69,7 +180,57 @@ let EmbeddedWebView = {
             headers = null;
         }
 
-        exec(successCallback, errorCallback, 'EmbeddedWebView', 'loadUrl', [url, headers]);
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'loadUrl', [url, headers, instanceId(this)]);
+    },
+
+    /**
+     * Load a URL into a hidden WebView ahead of time (Android). A later loadUrl()
+     * or create() with the same URL swaps the preloaded page in instead of
+     * navigating; after a swap, goBack() returns to the page it replaced.
+     * @param {string} url - URL to preload
+     * @param {object} [headers] - Optional custom HTTP headers
+     * @param {function} [successCallback]
+     * @param {function} [errorCallback]
+     */
+    preload: function (url, headers, successCallback, errorCallback) {
+        if (typeof headers === 'function') {
+            errorCallback = successCallback;
+            successCallback = headers;
+            headers = null;
+        }
+
+        if (!url || typeof url !== 'string') {
+            errorCallback && errorCallback('URL must be a non-empty string');
+            return;
+        }
+
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'preload', [url, headers, instanceId(this)]);
+    },
+
+    /**
+     * Push refreshed session state into the WebView without reloading it (Android).
+     * Cookies are shared by every instance and written with a single flush; storage
+     * entries apply to the current page's origin in one script, and a null value
+     * removes the key. Headers are added to sub-resource GET requests of the header
+     * origins (by default the current page's origin) until replaced; pass an empty
+     * headers object to stop adding them. Such requests bypass the response and image
+     * caches, which all instances share.
+     * @param {object} session
+     * @param {Array<object>} [session.cookies] - { url, name, value, path, domain, maxAge, secure, httpOnly, sameSite }
+     * @param {object} [session.localStorage] - Key/value pairs
+     * @param {object} [session.sessionStorage] - Key/value pairs
+     * @param {object} [session.headers] - Headers for sub-resource requests, e.g. { Authorization: 'Bearer ...' }
+     * @param {string[]} [session.headerOrigins] - Origin rules such as 'https://*.example.com'
+     * @param {function} [successCallback] - Receives { cookies, storage } with the number of each applied
+     * @param {function} [errorCallback]
+     */
+    syncSession: function (session, successCallback, errorCallback) {
+        if (!session || typeof session !== 'object') {
+            errorCallback && errorCallback('session must be an object');
+            return;
+        }
+
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'syncSession', [session, instanceId(this)]);
     },
 
     /** Execute JavaScript in the embedded WebView */
@@ -79,27 +240,334 @@ let EmbeddedWebView = {
             return;
         }
 
-        exec(successCallback, errorCallback, 'EmbeddedWebView', 'executeScript', [script]);
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'executeScript', [script, instanceId(this)]);
+    },
+
+    /**
+     * Register a script once and get a handle to invoke it with invokeScripts()
+     * (Android). The script is the body of a function that receives its
+     * arguments as the array `args`; it is installed in every page and
+     * re-installed after each navigation.
+     * @param {string} source - Function body, e.g. "return window[args[0]].getItem(args[1]);"
+     * @param {function} successCallback - Receives the script handle
+     * @param {function} [errorCallback]
+     */
+    registerScript: function (source, successCallback, errorCallback) {
+        if (!source || typeof source !== 'string') {
+            errorCallback && errorCallback('source must be a non-empty string');
+            return;
+        }
+
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'registerScript', [source]);
+    },
+
+    /** Remove a script registered with registerScript() (Android) */
+    unregisterScript: function (handle, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'unregisterScript', [handle]);
+    },
+
+    /**
+     * Run several registered scripts in a single evaluation (Android)
+     * @param {Array<{handle: string, args: Array}>} calls - Invocations, run in order
+     * @param {function} successCallback - Receives one { value } or { error } per call
+     * @param {function} [errorCallback]
+     *
+     * @example
+     * EmbeddedWebView.registerScript('return window[args[0]].getItem(args[1]);', function (getItem) {
+     *     EmbeddedWebView.invokeScripts([
+     *         { handle: getItem, args: ['localStorage', 'cartCount'] },
+     *         { handle: getItem, args: ['sessionStorage', 'step'] }
+     *     ], results => console.log(results[0].value, results[1].value));
+     * });
+     */
+    invokeScripts: function (calls, successCallback, errorCallback) {
+        if (!Array.isArray(calls)) {
+            errorCallback && errorCallback('calls must be an array');
+            return;
+        }
+
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'invokeScripts', [calls, instanceId(this)]);
+    },
+
+    /**
+     * Run several actions in one bridge call (Android).
+     * Steps run in order from a single UI-thread task; a step that completes
+     * asynchronously (executeScript, invokeScripts) finishes before the next one starts.
+     * Arguments are those of the matching method, without callbacks; on an instance
+     * handle the instance id is filled in. subscribeEvents and openChannel cannot be batched.
+     * @param {Array<{action: string, args: Array}>} calls - Steps, run in order
+     * @param {object} [options]
+     * @param {boolean} [options.stopOnError=false] - Skip the remaining steps after the first error
+     * @param {function} successCallback - Receives one { action, value } or { action, error } per step that ran
+     * @param {function} [errorCallback] - Called if the batch itself is invalid
+     *
+     * @example
+     * EmbeddedWebView.batch([
+     *     { action: 'setVisible', args: [true] },
+     *     { action: 'loadUrl', args: ['https://example.com', { Authorization: token }] },
+     *     { action: 'executeScript', args: ['document.title'] }
+     * ], { stopOnError: true }, results => console.log(results));
+     */
+    batch: function (calls, options, successCallback, errorCallback) {
+        if (!Array.isArray(calls)) {
+            errorCallback && errorCallback('calls must be an array');
+            return;
+        }
+
+        let id = instanceId(this);
+        let steps = calls.map(function (call) {
+            let args = (call.args || []).slice();
+            let index = instanceArgIndex[call.action];
+            if (index !== undefined && args[index] === undefined) {
+                while (args.length < index) {
+                    args.push(null);
+                }
+                args[index] = id;
+            }
+            return { action: call.action, args: args };
+        });
+
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'batch', [steps, options || {}]);
+    },
+
+    /**
+     * Move or resize the WebView in place, without reloading it (Android).
+     * Offsets are applied on top of the safe-area insets, which are tracked as they
+     * change (rotation, keyboard, system bars). Updates made within one frame are
+     * laid out together.
+     * @param {object} frame - Offsets in pixels; omitted ones keep their current value
+     * @param {number} [frame.top]
+     * @param {number} [frame.bottom]
+     * @param {number} [frame.height] - 0 fills down to the bottom offset
+     * @param {number} [frame.left]
+     * @param {number} [frame.right]
+     * @param {number} [frame.animate] - Animate the move over this many milliseconds
+     * @param {function} [successCallback]
+     * @param {function} [errorCallback]
+     */
+    setFrame: function (frame, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'setFrame', [frame || {}, instanceId(this)]);
+    },
+
+    /**
+     * Open a named message channel to the current page (Android).
+     * Messages are streamed in chunks over a WebMessagePort with flow control, and binary
+     * messages arrive as ArrayBuffer; their chunks cross the port as ArrayBuffers where the
+     * WebView supports it and as base64 otherwise. The page side is window.EmbeddedWebViewChannel:
+     * `EmbeddedWebViewChannel.get(name).then(ch => { ch.onmessage = fn; ch.send(data); })`,
+     * where send() returns a promise that resolves once the host has consumed the message.
+     * Channels close when the page navigates. The port is only handed to a document of the
+     * page's http(s) origin at the time of opening; other pages are refused.
+     * @param {string} name - Channel name
+     * @param {object} handlers
+     * @param {function} handlers.onMessage - Receives each message as a string or ArrayBuffer
+     * @param {function} [handlers.onClose] - Called when either side closes the channel
+     * @param {function} [handlers.onError] - Receives channel errors such as oversized messages
+     * @returns {{name: string, send: function, close: function}} Host end of the channel;
+     *   send(data, successCallback, errorCallback) takes a string, ArrayBuffer or typed array and
+     *   succeeds once the page has received the whole message
+     *
+     * @example
+     * const channel = EmbeddedWebView.openChannel('export', {
+     *     onMessage: data => saveReport(data)
+     * });
+     * channel.send(new TextEncoder().encode(payload).buffer);
+     */
+    openChannel: function (name, handlers) {
+        handlers = handlers || {};
+        var id = instanceId(this);
+
+        exec(function (data) {
+            handlers.onMessage && handlers.onMessage(data);
+        }, function (error) {
+            if (error === 'Channel closed') {
+                handlers.onClose && handlers.onClose();
+            } else {
+                handlers.onError && handlers.onError(error);
+            }
+        }, 'EmbeddedWebView', 'openChannel', [name, id]);
+
+        return {
+            name: name,
+            send: function (data, successCallback, errorCallback) {
+                var binary = typeof data !== 'string';
+                if (binary && ArrayBuffer.isView(data)) {
+                    data = data.buffer.slice(data.byteOffset, data.byteOffset + data.byteLength);
+                }
+                exec(successCallback, errorCallback, 'EmbeddedWebView', 'channelSend', [name, data, binary, id]);
+            },
+            close: function (successCallback, errorCallback) {
+                exec(successCallback, errorCallback, 'EmbeddedWebView', 'closeChannel', [name, id]);
+            }
+        };
     },
 
-    /** Show or hide the WebView */
+    /**
+     * Show or hide the WebView.
+     * On Android a hidden WebView is paused and, after the EmbeddedWebViewFreezeDelayMs
+     * preference, detached from the window. Under memory pressure it is saved and
+     * destroyed ("hibernated" event) and restored when shown again or used.
+     */
     setVisible: function (visible, successCallback, errorCallback) {
-        exec(successCallback, errorCallback, 'EmbeddedWebView', 'setVisible', [!!visible]);
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'setVisible', [!!visible, instanceId(this)]);
     },
 
     /** Reload the WebView */
     reload: function (successCallback, errorCallback) {
-        exec(successCallback, errorCallback, 'EmbeddedWebView', 'reload', []);
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'reload', [instanceId(this)]);
     },
 
     /** Go back in history */
     goBack: function (successCallback, errorCallback) {
-        exec(successCallback, errorCallback, 'EmbeddedWebView', 'goBack', []);
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'goBack', [instanceId(this)]);
     },
 
     /** Go forward in history */
     goForward: function (successCallback, errorCallback) {
-        exec(successCallback, errorCallback, 'EmbeddedWebView', 'goForward', []);
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'goForward', [instanceId(this)]);
+    },
+
+    /**
+     * Pre-build WebView instances so that the next create() can reuse them
+     * instead of constructing a WebView on the UI thread (Android)
+     * @param {number} count - Number of idle WebViews to keep ready
+     * @param {object} [options] - Same configuration options accepted by create()
+     * @param {function} [successCallback] - Receives the pool stats once warmed
+     * @param {function} [errorCallback]
+     */
+    prewarm: function (count, options, successCallback, errorCallback) {
+        if (typeof options === 'function') {
+            errorCallback = successCallback;
+            successCallback = options;
+            options = null;
+        }
+
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'prewarm', [count || 1, options || {}]);
+    },
+
+    /**
+     * Get WebView pool statistics (Android)
+     * @param {function} successCallback - Receives { hits, misses, idle, capacity }
+     * @param {function} [errorCallback]
+     */
+    getPoolStats: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'getPoolStats', []);
+    },
+
+    /**
+     * Resolve and open connections to origins ahead of their first use (Android).
+     * Connections are opened from an idle pooled WebView; when none is idle only the
+     * host names are resolved, so warm-up never builds a WebView.
+     * Connection setup of later loads is reported by getMetrics() as coldSetup,
+     * preconnectedSetup and preconnectSavings.
+     * @param {string[]} origins - Origins or URLs, such as 'https://api.example.com'
+     * @param {function} [successCallback]
+     * @param {function} [errorCallback]
+     */
+    preconnect: function (origins, successCallback, errorCallback) {
+        if (!Array.isArray(origins)) {
+            errorCallback && errorCallback('origins must be an array');
+            return;
+        }
+
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'preconnect', [origins]);
+    },
+
+    /**
+     * Download URLs into the response cache in the background (Android)
+     * @param {string[]} urls - Absolute URLs to store
+     * @param {function} [successCallback] - Receives the cache stats plus { precached }
+     * @param {function} [errorCallback]
+     */
+    precache: function (urls, successCallback, errorCallback) {
+        if (!Array.isArray(urls)) {
+            errorCallback && errorCallback('urls must be an array');
+            return;
+        }
+
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'precache', [urls]);
+    },
+
+    /**
+     * Get response cache statistics (Android)
+     * @param {function} successCallback - Receives { hits, misses, revalidations, hitRatio, bytesSaved, entries, sizeBytes, maxBytes }
+     * @param {function} [errorCallback]
+     */
+    getCacheStats: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'getCacheStats', []);
+    },
+
+    /**
+     * Get image transcoding statistics for all instances (Android). Bytes saved are also
+     * reported per image origin as the "imageBytesSaved" metric.
+     * @param {function} successCallback - Receives { transcoded, hits, passedThrough, bypassed, bytesIn, bytesOut,
+     *   bytesSaved, entries, sizeBytes, maxBytes }
+     * @param {function} [errorCallback]
+     */
+    getImageStats: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'getImageStats', []);
+    },
+
+    /**
+     * Get request filter statistics for all instances (Android)
+     * @param {function} successCallback - Receives { lookups, blocked, matchTimeMs, hosts: { host: count } }
+     * @param {function} [errorCallback]
+     */
+    getBlockStats: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'getBlockStats', []);
+    },
+
+    /**
+     * Latest navigation state pushed by the native side, read synchronously
+     * (Android). Updated from history changes, including pushState, with no polling.
+     * @returns {object|null} { canGoBack, canGoForward, currentIndex, historySize, url, title }
+     */
+    getNavigationState: function () {
+        return navigationStates[instanceId(this) || 'default'] || null;
+    },
+
+    /** Synchronous back availability from the cached navigation state (Android) */
+    canGoBack: function () {
+        let state = this.getNavigationState();
+        return !!(state && state.canGoBack);
+    },
+
+    /** Synchronous forward availability from the cached navigation state (Android) */
+    canGoForward: function () {
+        let state = this.getNavigationState();
+        return !!(state && state.canGoForward);
+    },
+
+    /**
+     * Get page-load metrics (Android): per-origin rolling histograms of native
+     * timings (createToWebView, createToPageStart, startToCommitVisible,
+     * startToFinish) and Navigation Timing/paint entries (dns, connect, tls, ttfb,
+     * download, domInteractive, domContentLoaded, load, firstPaint, firstContentfulPaint)
+     * @param {function} successCallback - Receives { origin: { metric: { count, p50, p95, p99, max } } }
+     * @param {function} [errorCallback]
+     */
+    getMetrics: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'getMetrics', []);
+    },
+
+    /** Clear collected page-load metrics (Android) */
+    resetMetrics: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'resetMetrics', []);
+    },
+
+    /**
+     * Change native logging and tracing at runtime (Android).
+     * Levels: 'off' (warnings and errors only, the default), 'info' (instance lifecycle),
+     * 'debug' (page loads, progress and events) and 'trace' (debug, plus android.os.Trace
+     * sections for actions, UI-thread hops, WebView callbacks and event flushes even
+     * before Android 10; on Android 10+ they are emitted whenever a trace is captured).
+     * The initial level comes from the EmbeddedWebViewDiagnostics preference.
+     * @param {string} level - 'off', 'info', 'debug' or 'trace'
+     * @param {function} [successCallback] - Receives the new level
+     * @param {function} [errorCallback]
+     */
+    setDiagnostics: function (level, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'EmbeddedWebView', 'setDiagnostics', [String(level)]);
     },
 
     /** Helper: Inject authentication token */
@@ -119,8 +587,9 @@ let EmbeddedWebView = {
 
     /**
      * Add event listener for WebView events
-     * @param {string} eventName - Event name (loadStart, loadStop, loadError, navigationStateChanged, canGoBackChanged, canGoForwardChanged)
-     * @param {function} callback - Callback function
+     * @param {string} eventName - Event name (loadStart, loadStop, loadError, loadProgress, navigationStateChanged, canGoBackChanged, canGoForwardChanged, evicted, hibernated, renderProcessGone, metrics)
+     * @param {function} callback - Callback function, receives { type, id, detail } where id is the WebView that fired it.
+     * On an instance handle, only events from that instance are delivered.
      * 
      * @example
      * // Listen for navigation state changes
@@ -164,8 +633,8 @@ let EmbeddedWebView = {
             return;
         }
 
-        let eventFullName = 'embeddedwebview.' + eventName;
-        document.addEventListener(eventFullName, callback, false);
+        listeners[eventName] = listeners[eventName] || [];
+        listeners[eventName].push({ id: instanceId(this), callback: callback });
     },
 
     /**
@@ -174,8 +643,15 @@ let EmbeddedWebView = {
      * @param {function} callback - Callback function to remove
      */
     removeEventListener: function (eventName, callback) {
-        let eventFullName = 'embeddedwebview.' + eventName;
-        document.removeEventListener(eventFullName, callback, false);
+        let id = instanceId(this);
+        let registered = listeners[eventName];
+        if (!registered) {
+            return;
+        }
+
+        listeners[eventName] = registered.filter(function (entry) {
+            return !(entry.id === id && entry.callback === callback);
+        });
     }
 };
 